@@ -0,0 +1,20 @@
+package epidemic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+// Runs the benchmarks with the usual JMH command line options.
+// The GC profiler is always added, so every result comes with the allocation rate of the benchmark.
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if(!options.contains("gc")){
+            options.add("-prof");
+            options.add("gc");
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
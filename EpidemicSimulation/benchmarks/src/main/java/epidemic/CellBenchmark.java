@@ -0,0 +1,78 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures the next state of single cells, as the average over a run of consecutive cells that moves through the
+// simulation space every invocation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CellBenchmark {
+    static final int CELLS = 1024;
+
+    @State(Scope.Thread)
+    public static class Cells extends SimulationState {
+        public CellGrid current, next;
+        public NeighborhoodStencil stencil;
+        public InfectionTable infection;
+        public RingCounter ringCounter;
+        public RandomStream rand;
+        public int[] counts;
+        public int cursor;
+
+        @Override
+        protected void prepare(){
+            current = simulation.getCells();
+            next = new CellGrid(current);
+            stencil = NeighborhoodStencil.create(Neighborhood.valueOf(neighborhood), radius, size, size);
+            infection = new InfectionTable(stencil.radius, simulation.infectionChance, simulation.contagionDecayRate);
+            ringCounter = new RingCounter(stencil);
+            ringCounter.update(current);
+            rand = new SplitMixStream(seed);
+            counts = new int[stencil.radius+1];
+        }
+
+        // The first index of the next run of cells.
+        int nextRun(){
+            int start = cursor;
+            cursor += CELLS;
+            if(cursor+CELLS > current.size()){ cursor = 0; }
+            return start;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getNextState(Cells c){
+        int start = c.nextRun();
+        long timeStep = c.simulation.getTimeStep()+1;
+        for(int index=start; index<start+CELLS; index++){
+            CellularAutomaton.getNextState(c.current, c.next, index%c.size, index/c.size, index, c.stencil,
+                    c.rand, timeStep, c.infection, c.simulation.removalDecayRate, 5);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getNextStateAggregated(Cells c){
+        int start = c.nextRun();
+        long timeStep = c.simulation.getTimeStep()+1;
+        for(int index=start; index<start+CELLS; index++){
+            CellularAutomaton.getNextStateAggregated(c.current, c.next, index%c.size, index/c.size, index,
+                    c.ringCounter, c.counts, c.rand, timeStep, c.infection, c.simulation.removalDecayRate, 5);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures running a sparse epidemic for a number of days, stepped by events or by evaluating the simulation space.
+// Every invocation populates the simulation again, so each one runs the same days from the same start. Populating
+// costs the same either way, and scheduling the first events is part of what event driven stepping costs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBenchmark {
+    @State(Scope.Benchmark)
+    public static class Epidemic {
+        @Param({"500", "2000"})
+        public int size;
+
+        @Param({"0.00001", "0.001"})
+        public double density;
+
+        @Param({"PerNeighbor", "RingAggregated"})
+        public String evaluation;
+
+        @Param({"false", "true"})
+        public boolean eventDriven;
+
+        @Param({"50"})
+        public int days;
+
+        public Simulation simulation;
+
+        @Setup
+        public void setUp(){
+            simulation = new Simulation(size, size, 2, 14, Neighborhood.Moore, 0.005, 0.5, 0.95, 1);
+            simulation.setInfectionEvaluation(InfectionEvaluation.valueOf(evaluation));
+            simulation.setSparseStepping(true);
+            simulation.setEventDriven(eventDriven);
+        }
+    }
+
+    @Benchmark
+    public SimulationStatistics run(Epidemic epidemic){
+        Simulation simulation = epidemic.simulation;
+        simulation.populateCells(epidemic.density, 0.25);
+        for(int day=0; day<epidemic.days && !simulation.isSettled(); day++){
+            simulation.getNextTimeStep();
+            simulation.updateTimeStep();
+        }
+        return simulation.getStatistics();
+    }
+}
@@ -0,0 +1,77 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures finding the contagious neighbors of every cell of the simulation space for both neighborhood models
+// across radii 1 to 10, once by walking the neighborhood stencil and once by counting the rings from prefix tables.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeighborBenchmark {
+    @State(Scope.Benchmark)
+    public static class Neighbors extends SimulationState {
+        @Param({"VonNeumann", "Moore"})
+        public String model;
+
+        @Param({"1", "2", "3", "5", "7", "10"})
+        public int neighborRadius;
+
+        public CellGrid cells;
+        public NeighborhoodStencil stencil;
+        public RingCounter ringCounter;
+        public int[] counts;
+
+        @Override
+        protected void prepare(){
+            cells = simulation.getCells();
+            stencil = NeighborhoodStencil.create(Neighborhood.valueOf(model), neighborRadius, size, size);
+            ringCounter = new RingCounter(stencil);
+            counts = new int[stencil.radius+1];
+        }
+    }
+
+    @Benchmark
+    public long walkStencil(Neighbors n){
+        CellGrid cells = n.cells;
+        NeighborhoodStencil stencil = n.stencil;
+        long contagious = 0;
+        for(int y=0; y<cells.height; y++){
+            for(int x=0; x<cells.width; x++){
+                int index = cells.getIndex(x, y);
+                boolean interior = stencil.isInterior(x, y);
+                for(int k=0; k<stencil.size(); k++){
+                    if(cells.isContagious(stencil.getNeighbor(x, y, index, interior, k))){ contagious++; }
+                }
+            }
+        }
+        return contagious;
+    }
+
+    @Benchmark
+    public long countRings(Neighbors n){
+        CellGrid cells = n.cells;
+        int[] counts = n.counts;
+        long contagious = 0;
+        n.ringCounter.update(cells);
+        for(int y=0; y<cells.height; y++){
+            for(int x=0; x<cells.width; x++){
+                n.ringCounter.countRings(x, y, counts);
+                for(int r=1; r<counts.length; r++){ contagious += counts[r]; }
+            }
+        }
+        return contagious;
+    }
+}
@@ -0,0 +1,56 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures each of the populate functions. Populating starts the simulation over, so it can be repeated freely.
+// Large simulation spaces are populated in parallel chunks when there is more than one thread.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulateBenchmark {
+    @State(Scope.Benchmark)
+    public static class Population extends SimulationState {
+        @Param({"0.25"})
+        public double resistance;
+
+        @Param({"0.2"})
+        public double standardDeviation;
+
+        @Param({"1"})
+        public int threads;
+
+        @Override
+        protected void configure(Simulation sim){ sim.setThreadCount(threads); }
+    }
+
+    @Benchmark
+    public SimulationStatistics populateConstant(Population p){
+        p.simulation.populateCells(p.density, p.resistance);
+        return p.simulation.getStatistics();
+    }
+
+    @Benchmark
+    public SimulationStatistics populateGaussian(Population p){
+        p.simulation.populateCells(p.density, p.resistance, p.standardDeviation, true);
+        return p.simulation.getStatistics();
+    }
+
+    @Benchmark
+    public SimulationStatistics populateUniform(Population p){
+        p.simulation.populateCells(p.density);
+        return p.simulation.getStatistics();
+    }
+}
@@ -0,0 +1,53 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures advancing the infected cells of the whole simulation space by one day, in runs as long as the rows of the
+// tiles the simulation steps, with the scalar kernel and with the Vector API kernel.
+// The forked JVM is started with the Vector API module, so both kernels can be measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ProgressionBenchmark {
+    @State(Scope.Thread)
+    public static class Kernel extends SimulationState {
+        @Param({"false", "true"})
+        public boolean vector;
+
+        public CellGrid current, next;
+        public ProgressionKernel kernel;
+        public RandomStream rand;
+
+        @Override
+        protected void prepare(){
+            current = simulation.getCells();
+            next = new CellGrid(current);
+            kernel = ProgressionKernel.create(simulation.removalDecayRate, simulation.getDaysToDeath(), vector);
+            if(kernel.isVectorized() != vector){ throw new IllegalStateException("The Vector API is not available."); }
+            rand = new SplitMixStream(seed);
+        }
+    }
+
+    @Benchmark
+    public CellGrid progress(Kernel k){
+        long timeStep = k.simulation.getTimeStep()+1;
+        for(int start=0; start<k.current.size(); start+=FrontierMap.TILE_SIZE){
+            k.kernel.progress(k.current, k.next, start, Math.min(k.current.size(), start+FrontierMap.TILE_SIZE),
+                    k.rand, timeStep);
+        }
+        return k.next;
+    }
+}
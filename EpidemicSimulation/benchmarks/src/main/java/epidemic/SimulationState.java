@@ -0,0 +1,58 @@
+package epidemic;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// A populated simulation shared by the benchmarks, parameterized by the size of the square simulation space,
+// the initial infection density, the master seed and the neighborhood.
+// The simulation is stepped for some days after populating it, so the benchmarks see a spreading infection rather
+// than only the scattered initial infections.
+// Enum parameters are given by name, since the generated benchmark code can't see the package-private enums.
+@State(Scope.Benchmark)
+public class SimulationState {
+    @Param({"50", "500", "2000", "4000"})
+    public int size;
+
+    @Param({"0.001", "0.01", "0.1"})
+    public double density;
+
+    @Param({"1"})
+    public long seed;
+
+    @Param({"Moore"})
+    public String neighborhood;
+
+    @Param({"3"})
+    public int radius;
+
+    @Param({"5"})
+    public int days;
+
+    public Simulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        simulation = new Simulation(size, size, radius, 5, Neighborhood.valueOf(neighborhood), 0.05, 0.5, 0.95, seed);
+        configure(simulation);
+        simulation.populateCells(density, 0.25);
+        for(int day=0; day<days; day++){
+            simulation.getNextTimeStep();
+            simulation.updateTimeStep();
+        }
+        prepare();
+    }
+
+    // Stop the threads the simulation started for stepping in parallel.
+    @TearDown(Level.Trial)
+    public void tearDown(){ simulation.shutdown(); }
+
+    // Choose the engine options of the simulation before it is populated.
+    protected void configure(Simulation sim){}
+
+    // Set up whatever else the benchmark needs once the simulation is ready.
+    protected void prepare(){}
+}
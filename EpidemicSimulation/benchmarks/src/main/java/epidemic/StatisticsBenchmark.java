@@ -0,0 +1,32 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures reading the statistics kept up to date by the simulation, against counting the whole simulation space.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark {
+    @Benchmark
+    public int getStatistics(SimulationState state){
+        SimulationStatistics statistics = state.simulation.getStatistics();
+        return statistics.getInfections()+statistics.getDeaths()+statistics.getRemovals();
+    }
+
+    @Benchmark
+    public SimulationStatistics countStatistics(SimulationState state){
+        SimulationStatistics statistics = new SimulationStatistics();
+        statistics.count(state.simulation.getCells());
+        return statistics;
+    }
+}
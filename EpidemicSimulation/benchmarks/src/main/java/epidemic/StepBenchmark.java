@@ -0,0 +1,49 @@
+package epidemic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures a whole time step of the simulation for each engine variant.
+// The next time step is calculated from the same state every invocation, so the measured work stays the same.
+// The forked JVM is started with the Vector API module, so infected cells are advanced by the vector kernel.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class StepBenchmark {
+    @State(Scope.Benchmark)
+    public static class Engine extends SimulationState {
+        @Param({"PerNeighbor", "RingAggregated"})
+        public String evaluation;
+
+        @Param({"true"})
+        public boolean sparse;
+
+        @Param({"1"})
+        public int threads;
+
+        @Override
+        protected void configure(Simulation sim){
+            sim.setInfectionEvaluation(InfectionEvaluation.valueOf(evaluation));
+            sim.setSparseStepping(sparse);
+            sim.setThreadCount(threads);
+        }
+    }
+
+    @Benchmark
+    public SimulationStatistics getNextTimeStep(Engine engine){
+        engine.simulation.getNextTimeStep();
+        return engine.simulation.getStatistics();
+    }
+}
@@ -0,0 +1,85 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameDay;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// These tests write checkpoints of random configurations part way through a run and check that the restored
+// simulations carry on exactly like the ones they were written from.
+class CheckpointTest {
+    private static final int CONFIGURATIONS = 12;
+    private static final int DAYS_AFTER_RESTORE = 30;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredSimulationContinuesTheSameWay() throws IOException {
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(600+i, 40, 150);
+            InfectionEvaluation evaluation = InfectionEvaluation.values()[i%2];
+            Simulation simulation = configuration.createPopulated();
+            simulation.setInfectionEvaluation(evaluation);
+            simulation.setSparseStepping(i%3 == 0);
+            for(int day=0; day<i*3; day++){
+                simulation.getNextTimeStep();
+                simulation.updateTimeStep();
+            }
+            String file = directory.resolve("checkpoint"+i+".bin").toString();
+            Checkpoint.write(simulation, file);
+            // Writing again replaces the checkpoint.
+            Checkpoint.write(simulation, file);
+            Simulation restored = Checkpoint.read(file);
+
+            String message = configuration+" "+evaluation;
+            assertEquals(simulation.getSeed(), restored.getSeed(), message);
+            assertSameDay(simulation, restored, message+" restored");
+            for(int day=1; day<=DAYS_AFTER_RESTORE; day++){
+                simulation.getNextTimeStep();
+                simulation.updateTimeStep();
+                restored.getNextTimeStep();
+                restored.updateTimeStep();
+                assertSameDay(simulation, restored, message+" day "+day+" after restoring");
+                assertEquals(simulation.isSettled(), restored.isSettled(), message);
+            }
+            assertFalse(Files.exists(directory.resolve("checkpoint"+i+".bin.partial")), message);
+        }
+    }
+
+    // The checkpoint cannot be moved over a directory that is not empty, so the write fails after the partial file
+    // has been written.
+    @Test
+    void failedWriteLeavesNoPartialFile() throws IOException {
+        Simulation simulation = new RandomConfiguration(700, 40, 150).createPopulated();
+        Path target = Files.createDirectory(directory.resolve("checkpoint.bin"));
+        Files.createFile(target.resolve("occupied"));
+        assertThrows(IOException.class, () -> Checkpoint.write(simulation, target.toString()));
+        assertFalse(Files.exists(directory.resolve("checkpoint.bin.partial")));
+    }
+
+    // A header holding a death time past the days a cell can count, or a negative radius, is not a checkpoint.
+    @Test
+    void corruptHeaderIsRejected() throws IOException {
+        Simulation simulation = new RandomConfiguration(701, 40, 150).createPopulated();
+        String file = directory.resolve("corrupt.bin").toString();
+        // The radius and death time follow the magic number, version, width and height.
+        int[][] corruptions = {{16, -1}, {20, CellGrid.MAX_DAYS_INFECTED+1}, {20, -1}};
+        for(int[] corruption : corruptions){
+            Checkpoint.write(simulation, file);
+            try(RandomAccessFile checkpoint = new RandomAccessFile(file, "rw")){
+                checkpoint.seek(corruption[0]);
+                checkpoint.writeInt(Integer.reverseBytes(corruption[1]));
+            }
+            assertThrows(IOException.class, () -> Checkpoint.read(file));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameStatistics;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// These tests run random configurations split into subdomains, with a thread for every worker talking through memory
+// mapped files, and check that the coordinator of DistributedRunner sees the same counts and settled state every day
+// as a single simulation of the whole simulation space.
+class DistributedEquivalenceTest {
+    private static final int CONFIGURATIONS = 8;
+    private static final int MAX_DAYS = 150;
+
+    @TempDir
+    Path directory;
+
+    // Every day the reports of the workers are added up and compared with the single simulation.
+    @Test
+    void workerReportsMatchSingleSimulation() throws Exception {
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(500+i, 40, 150);
+            SubdomainLayout layout = createLayout(configuration, 1+i%3, 1+(i/3)%2);
+            InfectionEvaluation evaluation = InfectionEvaluation.values()[i%2];
+            String message = configuration+" "+layout.columns+"x"+layout.rows+" "+evaluation;
+            Simulation simulation = configuration.createPopulated();
+            simulation.setInfectionEvaluation(evaluation);
+            runWorkers(configuration, layout, evaluation, Files.createDirectory(directory.resolve("reports"+i)),
+                    transport -> {
+                SimulationStatistics statistics = new SimulationStatistics();
+                FrontierMap frontier = new FrontierMap(layout.width, layout.height, layout.radius);
+                byte[] tileStates = new byte[frontier.tilesX*frontier.tilesY];
+                byte[] report = new byte[layout.getMaxMessage()];
+                for(int day=0; ; day++){
+                    DistributedRunner.receiveReports(layout, transport, statistics, frontier, tileStates, report);
+                    assertSameStatistics(simulation.getStatistics(), statistics, message+" day "+day);
+                    assertEquals(simulation.isSettled(), frontier.isEmpty(), message+" day "+day);
+                    boolean stop = (simulation.isSettled() || day >= MAX_DAYS);
+                    DistributedRunner.sendDecision(layout, transport, !stop, report);
+                    if(stop){ return; }
+                    simulation.getNextTimeStep();
+                    simulation.updateTimeStep();
+                }
+            });
+        }
+    }
+
+    // The coordinator writes the same statistics file as a single simulation stopped the way main stops it.
+    @Test
+    void coordinatorWritesSameStatisticsAsSingleSimulation() throws Exception {
+        for(int i=0; i<CONFIGURATIONS/2; i++){
+            RandomConfiguration configuration = new RandomConfiguration(550+i, 40, 150);
+            SubdomainLayout layout = createLayout(configuration, 2, 1+i%2);
+            InfectionEvaluation evaluation = InfectionEvaluation.values()[i%2];
+            Path single = directory.resolve("single"+i+".csv"), distributed = directory.resolve("distributed"+i+".csv");
+
+            Simulation simulation = configuration.createPopulated();
+            simulation.setInfectionEvaluation(evaluation);
+            try(OutputPipeline output = new OutputPipeline(1024)){
+                output.setCsvFile(single.toString());
+                output.publish(simulation);
+                int daysStable = 0;
+                for(int day=1; ; day++){
+                    simulation.getNextTimeStep();
+                    simulation.updateTimeStep();
+                    output.publish(simulation);
+                    daysStable = simulation.getStatistics().isUnchanged() ? daysStable+1:0;
+                    if(daysStable == 3 || simulation.isSettled() || day >= MAX_DAYS){ break; }
+                }
+            }
+            runWorkers(configuration, layout, evaluation, Files.createDirectory(directory.resolve("run"+i)),
+                    transport -> {
+                try(OutputPipeline output = new OutputPipeline(1024)){
+                    output.setCsvFile(distributed.toString());
+                    DistributedRunner.coordinate(layout, transport, output, MAX_DAYS);
+                }
+            });
+            assertEquals(Files.readAllLines(single), Files.readAllLines(distributed),
+                    configuration+" "+layout.columns+"x"+layout.rows+" "+evaluation);
+        }
+    }
+
+    // Subdomains have to be at least as wide and high as the radius.
+    private static SubdomainLayout createLayout(RandomConfiguration configuration, int columns, int rows){
+        int radius = NeighborhoodStencil.limitRadius(configuration.radius, configuration.width, configuration.height);
+        return new SubdomainLayout(configuration.width, configuration.height, columns, rows, radius);
+    }
+
+    // The part of the coordinator run on the test thread.
+    private interface Coordinator {
+        void run(HaloTransport transport) throws IOException;
+    }
+
+    // Start a thread for every worker and run the coordinator on the test thread until it stops the workers.
+    private static void runWorkers(RandomConfiguration configuration, SubdomainLayout layout,
+                                   InfectionEvaluation evaluation, Path run, Coordinator coordinator)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(layout.getWorkerCount());
+        ArrayList<Future<?>> workers = new ArrayList<>();
+        try(HaloTransport transport = openTransport(layout, layout.getCoordinator(), run)){
+            for(int i=0; i<layout.getWorkerCount(); i++){
+                int number = i;
+                workers.add(executor.submit(() -> {
+                    try(HaloTransport workerTransport = openTransport(layout, number, run)){
+                        SubdomainWorker worker = new SubdomainWorker(layout, number, workerTransport,
+                                configuration.neighborhood, configuration.deathTime,
+                                configuration.infectionProbability, configuration.contagionDecay,
+                                configuration.removalDecay, evaluation, configuration.seed);
+                        worker.populateCells(configuration.initialInfection, configuration.resistance);
+                        worker.run();
+                    }
+                    return null;
+                }));
+            }
+            coordinator.run(transport);
+            for(Future<?> worker : workers){ worker.get(); }
+        }finally{
+            // A worker still waiting for a message after a failure is interrupted.
+            executor.shutdownNow();
+        }
+    }
+
+    private static HaloTransport openTransport(SubdomainLayout layout, int endpoint, Path run) throws IOException {
+        return new SharedFileHaloTransport(run, endpoint, layout.getPeers(endpoint), layout.getWorkerCount()+1,
+                layout.getMaxMessage());
+    }
+}
@@ -0,0 +1,42 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameDay;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Event driven stepping has to give exactly the same cells and statistics on every day as evaluating the simulation
+// space, whether it is switched on from the start, part way through, or switched off and on again.
+class EventEngineTest {
+    private static final int CONFIGURATIONS = 12;
+    private static final int MAX_DAYS = 150;
+
+    @Test
+    void eventDrivenSteppingMatchesGridStepping(){
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(300+i, 40, 150);
+            for(InfectionEvaluation evaluation : InfectionEvaluation.values()){
+                Simulation grid = configuration.createPopulated();
+                Simulation events = configuration.createPopulated();
+                grid.setInfectionEvaluation(evaluation);
+                events.setInfectionEvaluation(evaluation);
+                grid.setSparseStepping(i%2 == 0);
+                int switchDay = (i%3 == 0) ? 0:7;
+                if(switchDay == 0){ events.setEventDriven(true); }
+                String message = configuration+" "+evaluation;
+                assertSameDay(grid, events, message+" day 0");
+                for(int day=1; day<=MAX_DAYS && !(grid.isSettled() && events.isSettled()); day++){
+                    if(day == switchDay){ events.setEventDriven(true); }
+                    if(i%3 == 2 && day == 20){ events.setEventDriven(false); }
+                    if(i%3 == 2 && day == 25){ events.setEventDriven(true); }
+                    grid.getNextTimeStep();
+                    grid.updateTimeStep();
+                    events.getNextTimeStep();
+                    events.updateTimeStep();
+                    assertSameDay(grid, events, message+" day "+day);
+                    assertEquals(grid.isSettled(), events.isSettled(), message+" day "+day);
+                }
+            }
+        }
+    }
+}
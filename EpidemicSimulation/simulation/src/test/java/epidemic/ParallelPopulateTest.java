@@ -0,0 +1,48 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameDay;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+// Populating chunks of rows of tiles in parallel has to give exactly the same cells, resistance and counts as
+// populating the whole simulation space on the calling thread, and both have to find the same tiles that can change.
+// The simulation spaces are large enough to be populated in parallel.
+class ParallelPopulateTest {
+    private static final int CONFIGURATIONS = 12;
+
+    @Test
+    void parallelPopulateMatchesSequentialPopulate(){
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(250+i, 130, 400);
+            Simulation sequential = configuration.createPopulated();
+            Simulation parallel = configuration.create();
+            parallel.setThreadCount(4);
+            try{
+                // Populating again starts the simulation over, whatever was there before.
+                parallel.populateCells(0.5, ResistanceDistribution.constant(0.9));
+                parallel.populateCells(configuration.initialInfection, configuration.resistance);
+                String message = configuration.toString();
+                assertSameDay(sequential, parallel, message);
+                assertArrayEquals(sequential.getCells().resistanceCodes, parallel.getCells().resistanceCodes,
+                        message);
+                assertArrayEquals(sequential.getCells().resistanceTable, parallel.getCells().resistanceTable,
+                        message);
+                assertEquals(sequential.isSettled(), parallel.isSettled(), message);
+
+                // The other grid of the simulation picks up the resistance table of the second population.
+                CellGrid populated = parallel.getCells();
+                sequential.getNextTimeStep();
+                sequential.updateTimeStep();
+                parallel.getNextTimeStep();
+                parallel.updateTimeStep();
+                assertSameDay(sequential, parallel, message+" day 1");
+                assertSame(populated.resistanceTable, parallel.getCells().resistanceTable, message);
+            }finally{
+                parallel.shutdown();
+            }
+        }
+    }
+}
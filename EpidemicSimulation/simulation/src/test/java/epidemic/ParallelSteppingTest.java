@@ -0,0 +1,32 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameRun;
+
+import org.junit.jupiter.api.Test;
+
+// Stepping bands of rows in parallel has to give exactly the same cells and statistics on every day as stepping them
+// on the calling thread. The simulation spaces are large enough to be stepped in parallel.
+class ParallelSteppingTest {
+    private static final int CONFIGURATIONS = 6;
+    private static final int MAX_DAYS = 150;
+
+    @Test
+    void parallelSteppingMatchesSequentialStepping(){
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(200+i, 130, 260);
+            for(InfectionEvaluation evaluation : InfectionEvaluation.values()){
+                Simulation sequential = configuration.createPopulated();
+                Simulation parallel = configuration.createPopulated();
+                parallel.setThreadCount(4);
+                try{
+                    sequential.setInfectionEvaluation(evaluation);
+                    parallel.setInfectionEvaluation(evaluation);
+                    parallel.setSparseStepping(i%2 == 0);
+                    assertSameRun(sequential, parallel, MAX_DAYS, configuration+" "+evaluation);
+                }finally{
+                    parallel.shutdown();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package epidemic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+// This class picks the parameters of a simulation from a seed, so the regression tests cover many sizes, radii and
+// rates while every failure can be repeated from the seed in its message.
+class RandomConfiguration {
+    final long configurationSeed;
+    final int width, height, radius, deathTime;
+    final Neighborhood neighborhood;
+    final double infectionProbability, contagionDecay, removalDecay, initialInfection;
+    final ResistanceDistribution resistance;
+    final long seed;
+
+    // Parameters:
+    // configuration = seed the parameters are picked from
+    // minSide = least width and height of the simulation space
+    // maxSide = greatest width and height of the simulation space
+    RandomConfiguration(long configuration, int minSide, int maxSide){
+        configurationSeed = configuration;
+        SplittableRandom random = new SplittableRandom(configuration);
+        width = random.nextInt(minSide, maxSide+1);
+        height = random.nextInt(minSide, maxSide+1);
+        radius = random.nextInt(1, 6);
+        deathTime = random.nextInt(2, CellGrid.MAX_DAYS_INFECTED+1);
+        neighborhood = Neighborhood.values()[random.nextInt(Neighborhood.values().length)];
+        infectionProbability = 0.01+0.4*random.nextDouble();
+        contagionDecay = 0.3+0.6*random.nextDouble();
+        // Rates above one make infected cells recover faster every day instead of slower.
+        removalDecay = 0.85+0.65*random.nextDouble();
+        initialInfection = random.nextBoolean() ? 0.001:0.02;
+        switch(random.nextInt(3)){
+            case 0: resistance = ResistanceDistribution.constant(0.5*random.nextDouble()); break;
+            case 1: resistance = ResistanceDistribution.uniform(); break;
+            default: resistance = ResistanceDistribution.skewedGaussian(0.3, 0.2, random.nextBoolean()); break;
+        }
+        seed = random.nextLong();
+    }
+
+    // A simulation with these parameters that has not been populated yet.
+    Simulation create(){
+        return new Simulation(width, height, radius, deathTime, neighborhood, infectionProbability, contagionDecay,
+                removalDecay, seed);
+    }
+
+    // A simulation with these parameters populated with the initial infections and resistance distribution.
+    Simulation createPopulated(){
+        Simulation simulation = create();
+        simulation.populateCells(initialInfection, resistance);
+        return simulation;
+    }
+
+    @Override
+    public String toString(){
+        return "configuration "+configurationSeed+" ("+width+"x"+height+" r"+radius+" "+neighborhood+")";
+    }
+
+    // Step both simulations until both have settled or the maximum number of days is reached, checking every day.
+    static void assertSameRun(Simulation expected, Simulation actual, int maxDays, String message){
+        assertSameDay(expected, actual, message+" day 0");
+        for(int day=1; day<=maxDays && !(expected.isSettled() && actual.isSettled()); day++){
+            expected.getNextTimeStep();
+            expected.updateTimeStep();
+            actual.getNextTimeStep();
+            actual.updateTimeStep();
+            assertSameDay(expected, actual, message+" day "+day);
+            assertEquals(expected.isSettled(), actual.isSettled(), message+" day "+day);
+        }
+    }
+
+    // Check that two simulations hold the same cells and statistics on the same time step.
+    static void assertSameDay(Simulation expected, Simulation actual, String message){
+        assertEquals(expected.getTimeStep(), actual.getTimeStep(), message);
+        assertArrayEquals(expected.getCells().state, actual.getCells().state, message);
+        assertSameStatistics(expected.getStatistics(), actual.getStatistics(), message);
+    }
+
+    static void assertSameStatistics(SimulationStatistics expected, SimulationStatistics actual, String message){
+        assertEquals(expected.getInfections(), actual.getInfections(), message);
+        assertEquals(expected.getDeaths(), actual.getDeaths(), message);
+        assertEquals(expected.getRemovals(), actual.getRemovals(), message);
+        assertEquals(expected.getNewInfections(), actual.getNewInfections(), message);
+        assertEquals(expected.getNewDeaths(), actual.getNewDeaths(), message);
+        assertEquals(expected.getNewRemovals(), actual.getNewRemovals(), message);
+    }
+}
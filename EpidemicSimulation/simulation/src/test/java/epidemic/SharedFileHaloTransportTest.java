@@ -0,0 +1,48 @@
+package epidemic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+// An endpoint waiting on another has to stop waiting once the other end has closed its files, after taking any message
+// sent before closing, instead of counting down a deadline.
+class SharedFileHaloTransportTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @Timeout(10)
+    void messageSentBeforeClosingIsReceived() throws IOException {
+        SharedFileHaloTransport receiver = new SharedFileHaloTransport(directory, 0, new int[]{1}, 2, 4);
+        try(SharedFileHaloTransport sender = new SharedFileHaloTransport(directory, 1, new int[]{0}, 2, 4)){
+            sender.send(0, new byte[]{1, 2, 3, 4}, 4);
+        }
+        byte[] message = new byte[4];
+        receiver.receive(1, message, 4);
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, message);
+        assertThrows(IOException.class, () -> receiver.receive(1, message, 4));
+    }
+
+    @Test
+    @Timeout(10)
+    void waitingOnClosedEndpointFails() throws IOException {
+        SharedFileHaloTransport waiting = new SharedFileHaloTransport(directory, 0, new int[]{1}, 2, 4);
+        SharedFileHaloTransport closing = new SharedFileHaloTransport(directory, 1, new int[]{0}, 2, 4);
+        Thread closer = new Thread(() -> {
+            try{
+                Thread.sleep(200);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            closing.close();
+        });
+        closer.start();
+        assertThrows(IOException.class, () -> waiting.receive(1, new byte[4], 4));
+    }
+}
@@ -0,0 +1,27 @@
+package epidemic;
+
+import static epidemic.RandomConfiguration.assertSameRun;
+
+import org.junit.jupiter.api.Test;
+
+// Sparse stepping only evaluates the tiles that can change, which has to give exactly the same cells and statistics as
+// evaluating every cell on every day.
+class SparseSteppingTest {
+    private static final int CONFIGURATIONS = 12;
+    private static final int MAX_DAYS = 150;
+
+    @Test
+    void sparseSteppingMatchesDenseStepping(){
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(100+i, 40, 150);
+            for(InfectionEvaluation evaluation : InfectionEvaluation.values()){
+                Simulation dense = configuration.createPopulated();
+                Simulation sparse = configuration.createPopulated();
+                dense.setInfectionEvaluation(evaluation);
+                sparse.setInfectionEvaluation(evaluation);
+                sparse.setSparseStepping(true);
+                assertSameRun(dense, sparse, MAX_DAYS, configuration+" "+evaluation);
+            }
+        }
+    }
+}
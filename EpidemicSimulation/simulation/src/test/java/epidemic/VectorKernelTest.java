@@ -0,0 +1,45 @@
+package epidemic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+// The vector progression kernel has to advance the infected cells exactly like the scalar kernel, and count as many
+// draws when metrics wrap the stream. Both kernels advance the grid of every day of a random run into scratch grids.
+class VectorKernelTest {
+    private static final int CONFIGURATIONS = 12;
+    private static final int MAX_DAYS = 150;
+
+    @Test
+    void vectorKernelMatchesScalarKernel(){
+        for(int i=0; i<CONFIGURATIONS; i++){
+            RandomConfiguration configuration = new RandomConfiguration(400+i, 40, 150);
+            ProgressionKernel scalar = ProgressionKernel.create(configuration.removalDecay, configuration.deathTime,
+                    false);
+            ProgressionKernel vector = ProgressionKernel.create(configuration.removalDecay, configuration.deathTime,
+                    true);
+            assumeTrue(vector.isVectorized(), "The Vector API is not available.");
+            Simulation simulation = configuration.createPopulated();
+            for(int day=1; day<=MAX_DAYS && !simulation.isSettled(); day++){
+                CellGrid cells = simulation.getCells();
+                CellGrid scalarNext = new CellGrid(cells), vectorNext = new CellGrid(cells);
+                CountingStream scalarStream = new CountingStream(new SplitMixStream(configuration.seed));
+                CountingStream vectorStream = new CountingStream(new SplitMixStream(configuration.seed));
+                scalar.progress(cells, scalarNext, 0, cells.size(), scalarStream, day);
+                vector.progress(cells, vectorNext, 0, cells.size(), vectorStream, day);
+                String message = configuration+" day "+day;
+                assertArrayEquals(scalarNext.state, vectorNext.state, message);
+                assertEquals(scalarStream.takeDraws(), vectorStream.takeDraws(), message);
+
+                scalar.progress(cells, scalarNext, 0, cells.size(), new SplitMixStream(configuration.seed), day);
+                vector.progress(cells, vectorNext, 0, cells.size(), new SplitMixStream(configuration.seed), day);
+                assertArrayEquals(scalarNext.state, vectorNext.state, message);
+
+                simulation.getNextTimeStep();
+                simulation.updateTimeStep();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package epidemic;
+
+// This class stores the state of every cellular automaton in the simulation space in compact primitive arrays.
+// The state of the automaton at (x, y) is found at index y*width+x of each array.
+// Each automaton takes up a single state byte, which packs the contagious, removed and dead flags into the low three
+// bits and the days infected into the high five bits. Days infected saturate at MAX_DAYS_INFECTED.
+// Resistance never changes after the simulation space is populated, so the two grids of a simulation share it. It is
+// stored as a short code into a table of resistance values. A population with one resistance value uses a table of
+// that one value, any other population uses evenly spaced levels between 0 and 1.
+public class CellGrid {
+    static final int CONTAGIOUS = 1, REMOVED = 2, DEAD = 4, FLAGS = 7;
+    static final int DAYS_SHIFT = 3, MAX_DAYS_INFECTED = 31;
+    // Resistance of every code of a population with more than one resistance value.
+    static final double[] QUANTIZED_RESISTANCE = new double[65536];
+    static {
+        for(int i=0; i<QUANTIZED_RESISTANCE.length; i++){ QUANTIZED_RESISTANCE[i] = i/65535.0; }
+    }
+
+    final int width, height;
+    final byte[] state;
+    final short[] resistanceCodes;
+    double[] resistanceTable = QUANTIZED_RESISTANCE;
+    // The other grid of the simulation sharing the resistance of this grid.
+    private CellGrid partner;
+
+    CellGrid(int w, int h){
+        width = w;
+        height = h;
+        state = new byte[w*h];
+        resistanceCodes = new short[w*h];
+    }
+
+    // A second grid the same size as the given grid that shares its resistance as it is now. The given grid is left
+    // alone, so scratch grids can be made from the grid of a running simulation.
+    CellGrid(CellGrid shared){
+        width = shared.width;
+        height = shared.height;
+        state = new byte[width*height];
+        resistanceCodes = shared.resistanceCodes;
+        resistanceTable = shared.resistanceTable;
+    }
+
+    // Make the two grids of a simulation keep sharing their resistance table when the population changes.
+    static void pair(CellGrid first, CellGrid second){
+        first.partner = second;
+        second.partner = first;
+    }
+
+    // Estimated bytes taken up by the two grids of a simulation of the given size, which share their resistance.
+    // See Simulation.estimateBytes for everything else a simulation holds.
+    public static long estimateBytes(int w, int h){ return (long) w*h*(2+2); }
+
+    // Get the index of the automaton at the x and y coordinates.
+    public int getIndex(int x, int y){ return y*width+x; }
+
+    // Number of automatons in the simulation space.
+    public int size(){ return state.length; }
+
+    public boolean isContagious(int index){ return (state[index] & CONTAGIOUS) != 0; }
+    public boolean isRemoved(int index){ return (state[index] & REMOVED) != 0; }
+    public boolean isDead(int index){ return (state[index] & DEAD) != 0; }
+    public int getDaysInfected(int index){ return getDaysInfected(state[index]); }
+    public double getResistance(int index){ return resistanceTable[resistanceCodes[index] & 0xFFFF]; }
+
+    // Get the days infected packed into a state byte.
+    static int getDaysInfected(byte cellState){ return (cellState & 0xFF) >>> DAYS_SHIFT; }
+
+    // Pack the state flags and days infected into a state byte.
+    static byte pack(int flags, int days){
+        return (byte) (flags | Math.min(days, MAX_DAYS_INFECTED) << DAYS_SHIFT);
+    }
+
+    // Set the state flags and days infected of the automaton at the index.
+    public void setState(int index, boolean isContagious, boolean isRemoved, boolean isDead, int days){
+        state[index] = pack((isContagious ? CONTAGIOUS:0) | (isRemoved ? REMOVED:0) | (isDead ? DEAD:0), days);
+    }
+
+    // Use a table of one resistance value for the whole population.
+    public void useConstantResistance(double removalChance){ setResistanceTable(new double[]{removalChance}); }
+
+    // Use evenly spaced levels of resistance between 0 and 1 for the population.
+    public void useQuantizedResistance(){ setResistanceTable(QUANTIZED_RESISTANCE); }
+
+    private void setResistanceTable(double[] table){
+        resistanceTable = table;
+        if(partner != null){ partner.resistanceTable = table; }
+    }
+
+    // Set the resistance of the automaton at the index to the closest value of the resistance table.
+    public void setResistance(int index, double removalChance){
+        if(resistanceTable.length == 1){ resistanceCodes[index] = 0; }
+        else{ resistanceCodes[index] = (short) Math.round(Math.max(0, Math.min(1, removalChance))*65535); }
+    }
+
+    // Copy the state of the automaton at the index from the source grid.
+    public void copyState(CellGrid source, int index){ state[index] = source.state[index]; }
+
+    // Copy the state of the automatons from the start index up to but not including the end index from the source grid.
+    public void copyStates(CellGrid source, int start, int end){
+        System.arraycopy(source.state, start, state, start, end-start);
+    }
+}
@@ -0,0 +1,148 @@
+package epidemic;
+
+import static java.lang.Math.pow;
+
+enum Neighborhood {VonNeumann, Moore}
+
+// Roll for an infection once for every contagious neighbor, or once for all of them together.
+enum InfectionEvaluation {PerNeighbor, RingAggregated}
+
+// The rules that take a cellular automaton stored in a cell grid from one time step to the next.
+public class CellularAutomaton {
+
+    // Set the initial state of the automaton at the index.
+    // The automaton starts out removed with a chance equal to its resistance as stored in the grid.
+    public static void setInitialState(
+            CellGrid grid, int index, boolean infected, double removalChance, RandomStream rand){
+        grid.setResistance(index, removalChance);
+        grid.setState(index, infected, rand.nextDouble() < grid.getResistance(index), false, 0);
+    }
+
+    // Update cell's state based on if the cells neighbors are contagious or not.
+    // Generally, contagion decay and removal decay should be in the range of 0 and 1 exclusive.
+    // If the decay values are set to 1, no decay occurs and the chance of infection or immunity stays the same.
+    // If the decay values are set to less than or equal to 0 or greater than 1, standard exponential decay is used.
+    // If the decay values are within the exclusive range of 0 and 1, the chance of infection or removal is multiplied
+    // by the corresponding decay factor each calculation iteration.
+    // Days to death is used to specify how many days a cell has to be removed before it dies.
+    // The state is read from the index of the current grid and the next state is written to the same index of the
+    // next grid. The stencil supplies the neighbors of the cell at (x, y), which is stored at the index, and the
+    // infection table supplies the decayed chance of infection on each radius.
+    // Random draws come from the stream positioned at this cell for the time step being calculated.
+    // Returns the number of neighbors looked at.
+    public static int getNextState(
+            CellGrid current,
+            CellGrid next,
+            int x,
+            int y,
+            int index,
+            NeighborhoodStencil stencil,
+            RandomStream rand,
+            long timeStep,
+            InfectionTable infection,
+            double removalDecay,
+            int daysToDeath){
+
+        // Start from a copy of the current automaton.
+        byte cell = current.state[index];
+        next.state[index] = cell;
+
+        // Only check if neighbors infect this cell if this cell is not already infected.
+        if((cell & CellGrid.CONTAGIOUS) == 0) {
+            boolean interior = stencil.isInterior(x, y);
+            boolean positioned = false;
+            // Iterate over all neighbors one radius at a time.
+            for (int radius = 1; radius <= stencil.radius; radius++) {
+                double infectionChance = infection.chance[radius];
+                for (int k = stencil.radiusStart[radius-1]; k < stencil.radiusStart[radius]; k++) {
+                    // Check if this cell gets infected by contagious neighbor cell.
+                    // If cell becomes infected, wait until next time step to update state again.
+                    if ((current.state[stencil.getNeighbor(x, y, index, interior, k)] & CellGrid.CONTAGIOUS) != 0){
+                        if (!positioned){
+                            rand.setPosition(timeStep, index);
+                            positioned = true;
+                        }
+                        if (rand.nextDouble() < infectionChance){
+                            next.state[index] = (byte) (cell | CellGrid.CONTAGIOUS);
+                            return k+1;
+                        }
+                    }
+                }
+            }
+            return stencil.size();
+        }
+        // If the cell is already infected, check if immunity is gained.
+        else if((cell & (CellGrid.REMOVED | CellGrid.DEAD)) == 0){
+            progressInfection(current, next, index, cell, rand, timeStep, removalDecay, daysToDeath);
+        }
+        return 0;
+    }
+
+    // Same as above, except the chance of infection by all contagious neighbors is rolled at once.
+    // The ring counter supplies the number of contagious neighbors on every radius, which are written to the counts.
+    // This is statistically the same as rolling once for every contagious neighbor, but the draws differ.
+    // Returns the number of rings counted.
+    public static int getNextStateAggregated(
+            CellGrid current,
+            CellGrid next,
+            int x,
+            int y,
+            int index,
+            RingCounter ringCounter,
+            int[] counts,
+            RandomStream rand,
+            long timeStep,
+            InfectionTable infection,
+            double removalDecay,
+            int daysToDeath){
+
+        // Start from a copy of the current automaton.
+        byte cell = current.state[index];
+        next.state[index] = cell;
+
+        // Only check if neighbors infect this cell if this cell is not already infected.
+        if((cell & CellGrid.CONTAGIOUS) == 0) {
+            ringCounter.countRings(x, y, counts);
+            infectAggregated(next, index, cell, counts, rand, timeStep, infection);
+            return counts.length-1;
+        }
+        // If the cell is already infected, check if immunity is gained.
+        else if((cell & (CellGrid.REMOVED | CellGrid.DEAD)) == 0){
+            progressInfection(current, next, index, cell, rand, timeStep, removalDecay, daysToDeath);
+        }
+        return 0;
+    }
+
+    // Roll once for an infection by all the contagious neighbors counted on every radius, starting at radius 1.
+    // The cell is its current state byte, which is not contagious.
+    static void infectAggregated(
+            CellGrid next, int index, byte cell, int[] counts, RandomStream rand, long timeStep,
+            InfectionTable infection){
+        double infectionChance = infection.getInfectionChance(counts);
+        if(infectionChance > 0){
+            rand.setPosition(timeStep, index);
+            if(rand.nextDouble() < infectionChance){ next.state[index] = (byte) (cell | CellGrid.CONTAGIOUS); }
+        }
+    }
+
+    // Advance an infected cell by one day and check if it is removed or dies. The cell is its current state byte.
+    static void progressInfection(
+            CellGrid current, CellGrid next, int index, byte cell, RandomStream rand, long timeStep,
+            double removalDecay, int daysToDeath){
+        int daysInfected = CellGrid.getDaysInfected(cell)+1;
+        double resistance = current.getResistance(index);
+        int flags = cell & CellGrid.FLAGS;
+        rand.setPosition(timeStep, index);
+        // Chance of immunity decreases with days infected unless immunity decay factor is 1
+        // If decay factor is not given a value between 0 exclusive and 1 inclusive use standard exponential decay
+        boolean removed;
+        if(removalDecay > 0 && removalDecay <= 1) {
+            removed = (rand.nextDouble() < resistance * pow(removalDecay, (double) daysInfected));
+        } else { removed = (rand.nextDouble() < pow(resistance, (double) daysInfected));}
+        if(removed){ flags |= CellGrid.REMOVED; }
+
+        // Cell dies after X days of not gaining immunity.
+        if(daysInfected >= daysToDeath){ flags |= CellGrid.DEAD; }
+        next.state[index] = CellGrid.pack(flags, daysInfected);
+    }
+}
@@ -0,0 +1,162 @@
+package epidemic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// This class writes the complete state of a simulation to a binary checkpoint file and restores simulations from it.
+// The file starts with a fixed size header holding the parameters of the simulation, the master seed, the time step and
+// the state changes of that time step, followed by the state byte and resistance code of every cell and the resistance
+// of the population if it only has one. The random streams only depend on the master seed, the time step and the cell
+// index, so a restored simulation continues with exactly the same draws. A simulation using its own random streams has
+// to be given them again.
+// The cell arrays are written in chunks straight from the arrays and read through memory mapped chunks of the file, so
+// even very large grids are written and read at disk speed. Nothing is mapped while writing, so the finished checkpoint
+// can be moved over the old one on every platform. Every value is stored little endian, which is the byte order of
+// most machines.
+public class Checkpoint {
+    private static final int MAGIC = 0x45504943; // "EPIC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 96;
+    // Bytes of the file mapped at once when reading, and written at once.
+    private static final int CHUNK_BYTES = 1 << 28, WRITE_CHUNK_BYTES = 1 << 20;
+
+    // Write the current time step of the simulation to the file. The checkpoint is written next to the file first and
+    // then moved over it, so an interrupted write never destroys an older checkpoint. A failed write leaves nothing
+    // behind.
+    public static void write(Simulation simulation, String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        Path partial = path.resolveSibling(path.getFileName()+".partial");
+        CellGrid cells = simulation.getCells();
+        SimulationStatistics statistics = simulation.getStatistics();
+        try {
+            try(FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)){
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION);
+                header.putInt(cells.width).putInt(cells.height);
+                header.putInt(simulation.getRadius()).putInt(simulation.getDaysToDeath());
+                header.putInt(simulation.getNeighborhood().ordinal());
+                header.putInt(simulation.getInfectionEvaluation().ordinal());
+                header.putDouble(simulation.infectionChance);
+                header.putDouble(simulation.contagionDecayRate);
+                header.putDouble(simulation.removalDecayRate);
+                header.putLong(simulation.getSeed()).putLong(simulation.getTimeStep());
+                header.putInt(statistics.getNewInfections()).putInt(statistics.getNewDeaths());
+                header.putInt(statistics.getNewRemovals()).putInt(cells.resistanceTable.length);
+                header.clear();
+                writeFully(channel, header);
+
+                for(int i=0; i<cells.size(); i+=WRITE_CHUNK_BYTES){
+                    writeFully(channel, ByteBuffer.wrap(cells.state, i, Math.min(WRITE_CHUNK_BYTES, cells.size()-i)));
+                }
+                ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for(int i=0; i<cells.size(); i+=WRITE_CHUNK_BYTES/2){
+                    int length = Math.min(WRITE_CHUNK_BYTES/2, cells.size()-i);
+                    chunk.clear();
+                    chunk.asShortBuffer().put(cells.resistanceCodes, i, length);
+                    chunk.limit(2*length);
+                    writeFully(channel, chunk);
+                }
+                // The evenly spaced levels are the same in every checkpoint, so only a single value is written.
+                if(cells.resistanceTable.length == 1){
+                    chunk.clear();
+                    chunk.putDouble(cells.resistanceTable[0]).flip();
+                    writeFully(channel, chunk);
+                }
+                channel.force(true);
+            }
+            Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException | RuntimeException e){
+            try {
+                Files.deleteIfExists(partial);
+            } catch(IOException deleteFailure){
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+    }
+
+    // Restore the simulation written to the file. It continues from the time step it was written at.
+    public static Simulation read(String fileName) throws IOException {
+        return read(fileName, null);
+    }
+
+    // Restore the simulation written to the file with a different master seed. Every time step after the restored one
+    // draws from the streams of the new seed, so many scenarios can branch from the same checkpoint.
+    public static Simulation read(String fileName, long masterSeed) throws IOException {
+        return read(fileName, Long.valueOf(masterSeed));
+    }
+
+    private static Simulation read(String fileName, Long masterSeed) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+            if(channel.size() < HEADER_BYTES){ throw new IOException(fileName+" is not a simulation checkpoint."); }
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if(header.getInt() != MAGIC){ throw new IOException(fileName+" is not a simulation checkpoint."); }
+            int version = header.getInt();
+            if(version != VERSION){ throw new IOException("Unsupported checkpoint version "+version+"."); }
+            int w = header.getInt(), h = header.getInt();
+            int r = header.getInt(), deathTime = header.getInt();
+            int model = header.getInt(), evaluation = header.getInt();
+            double infectionChance = header.getDouble();
+            double contagionDecay = header.getDouble();
+            double removalDecay = header.getDouble();
+            long seed = header.getLong(), timeStep = header.getLong();
+            int newInfections = header.getInt(), newDeaths = header.getInt(), newRemovals = header.getInt();
+            int tableLength = header.getInt();
+            long tableBytes = (tableLength == 1) ? 8:0;
+
+            long cellCount = (long) w*h;
+            if(w <= 0 || h <= 0 || cellCount > Integer.MAX_VALUE || r < 0 || timeStep < 0
+                    || deathTime < 0 || deathTime > CellGrid.MAX_DAYS_INFECTED
+                    || model < 0 || model >= Neighborhood.values().length
+                    || evaluation < 0 || evaluation >= InfectionEvaluation.values().length
+                    || (tableLength != 1 && tableLength != CellGrid.QUANTIZED_RESISTANCE.length)
+                    || channel.size() != HEADER_BYTES+3*cellCount+tableBytes){
+                throw new IOException(fileName+" is not a valid simulation checkpoint.");
+            }
+
+            Simulation simulation = new Simulation(w, h, r, deathTime, Neighborhood.values()[model],
+                    infectionChance, contagionDecay, removalDecay, masterSeed == null ? seed:masterSeed);
+            simulation.setInfectionEvaluation(InfectionEvaluation.values()[evaluation]);
+            CellGrid cells = simulation.getCells();
+
+            long position = HEADER_BYTES;
+            for(int i=0; i<cells.size(); i+=CHUNK_BYTES){
+                int length = Math.min(CHUNK_BYTES, cells.size()-i);
+                map(channel, FileChannel.MapMode.READ_ONLY, position+i, length).get(cells.state, i, length);
+            }
+            position += cells.size();
+            for(int i=0; i<cells.size(); i+=CHUNK_BYTES/2){
+                int length = Math.min(CHUNK_BYTES/2, cells.size()-i);
+                map(channel, FileChannel.MapMode.READ_ONLY, position+2L*i, 2*length)
+                        .asShortBuffer().get(cells.resistanceCodes, i, length);
+            }
+            position += 2L*cells.size();
+            // The population either has one resistance value or uses the evenly spaced levels.
+            if(tableLength == 1){
+                cells.useConstantResistance(map(channel, FileChannel.MapMode.READ_ONLY, position, 8).getDouble());
+            } else {
+                cells.useQuantizedResistance();
+            }
+
+            simulation.restore(timeStep, newInfections, newDeaths, newRemovals);
+            return simulation;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()){ channel.write(buffer); }
+    }
+
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, int length)
+            throws IOException {
+        return channel.map(mode, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,37 @@
+package epidemic;
+
+// This stream counts the random numbers drawn from another stream, for the metrics of a simulation.
+class CountingStream implements RandomStream {
+    private final RandomStream stream;
+    private long draws;
+
+    CountingStream(RandomStream countedStream){ stream = countedStream; }
+
+    @Override
+    public void setPosition(long timeStep, int index){ stream.setPosition(timeStep, index); }
+
+    @Override
+    public double nextDouble(){
+        draws++;
+        return stream.nextDouble();
+    }
+
+    @Override
+    public double nextGaussian(){
+        draws++;
+        return stream.nextGaussian();
+    }
+
+    // The stream being counted.
+    RandomStream getStream(){ return stream; }
+
+    // Count draws taken from the counted stream without going through this stream.
+    void addDraws(long count){ draws += count; }
+
+    // Get the number of draws since the last call and start counting over.
+    long takeDraws(){
+        long counted = draws;
+        draws = 0;
+        return counted;
+    }
+}
@@ -0,0 +1,175 @@
+package epidemic;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// This class runs a simulation split into subdomains stepped by separate worker processes.
+// The coordinator starts a worker process for every subdomain and then adds up the counts the workers report after
+// every time step. The workers also report the states of the tiles they overlap, which the coordinator combines into
+// the frontier map of the whole simulation space. It stops the workers the same way main stops a simulation: once no
+// cell can change anymore or the counts stay the same for three days, or else once the maximum number of days is
+// reached. The statistics are written like those of main.
+// The simulation is the first configuration of a sweep specification, using its seed and maximum days. An evaluation
+// given after the transport replaces the infection evaluation of the configuration.
+// Workers talk over TCP connections on consecutive ports of this machine, or through memory mapped files in a
+// directory.
+public class DistributedRunner {
+    // Usage: DistributedRunner <sweep properties> <statistics csv> <columns> <rows> tcp <first port> [evaluation]
+    //        DistributedRunner <sweep properties> <statistics csv> <columns> <rows> files <directory> [evaluation]
+    // Workers are started with: DistributedRunner worker <number> followed by the same arguments.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean worker = (args.length > 0 && args[0].equals("worker"));
+        String[] options = worker ? Arrays.copyOfRange(args, 2, args.length):args;
+        if(options.length < 6){
+            System.out.println("Usage: DistributedRunner <sweep properties> <statistics csv> <columns> <rows> "
+                    +"tcp <first port>|files <directory> [PerNeighbor|RingAggregated]");
+            return;
+        }
+        SweepSpecification sweep = SweepSpecification.read(options[0]);
+        SweepConfiguration configuration = sweep.configurations.get(0);
+        int radius = NeighborhoodStencil.limitRadius(configuration.radius, configuration.width, configuration.height);
+        SubdomainLayout layout = new SubdomainLayout(configuration.width, configuration.height,
+                Integer.parseInt(options[2]), Integer.parseInt(options[3]), radius);
+        InfectionEvaluation evaluation = (options.length > 6) ? InfectionEvaluation.valueOf(options[6])
+                :configuration.infectionEvaluation;
+
+        if(worker){
+            int number = Integer.parseInt(args[1]);
+            try(HaloTransport transport = openTransport(layout, number, options)){
+                SubdomainWorker subdomain = new SubdomainWorker(layout, number, transport,
+                        configuration.neighborhood, configuration.deathTime, configuration.infectionProbability,
+                        configuration.contagionDecay, configuration.removalDecay, evaluation, sweep.seed);
+                subdomain.populateCells(configuration.initialInfectionPercentage,
+                        configuration.getResistanceDistribution());
+                subdomain.run();
+            }
+            return;
+        }
+
+        // Files of an earlier run would hold its message counts.
+        if(options[4].equals("files")){
+            Path directory = Paths.get(options[5]);
+            Files.createDirectories(directory);
+            File[] old = directory.toFile().listFiles((dir, name) -> name.endsWith(".halo"));
+            if(old != null){
+                for(File file : old){ Files.delete(file.toPath()); }
+            }
+        }
+        ArrayList<Process> workers = new ArrayList<>();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // Workers run with the options of this JVM, so they get the same modules, heap and settings. A debugger agent
+        // is left out, since every worker would try to listen on its port.
+        ArrayList<String> jvmOptions = new ArrayList<>();
+        for(String option : ManagementFactory.getRuntimeMXBean().getInputArguments()){
+            if(!option.startsWith("-agentlib:jdwp") && !option.startsWith("-Xrunjdwp")){ jvmOptions.add(option); }
+        }
+        for(int i=0; i<layout.getWorkerCount(); i++){
+            ArrayList<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmOptions);
+            command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                    DistributedRunner.class.getName(), "worker", Integer.toString(i)));
+            command.addAll(Arrays.asList(options));
+            workers.add(new ProcessBuilder(command).inheritIO().start());
+        }
+        try(HaloTransport transport = openTransport(layout, layout.getCoordinator(), options);
+            OutputPipeline output = new OutputPipeline(1024)){
+            output.setConsoleOutput(true);
+            output.setCsvFile(options[1]);
+            coordinate(layout, transport, output, sweep.maxDays);
+        }finally{
+            for(Process process : workers){
+                if(process.waitFor() != 0){ System.err.println("A worker failed."); }
+            }
+        }
+    }
+
+    private static HaloTransport openTransport(SubdomainLayout layout, int endpoint, String[] options)
+            throws IOException {
+        int[] peers = layout.getPeers(endpoint);
+        if(options[4].equals("files")){
+            return new SharedFileHaloTransport(Paths.get(options[5]), endpoint, peers, layout.getWorkerCount()+1,
+                    layout.getMaxMessage());
+        }
+        int firstPort = Integer.parseInt(options[5]);
+        InetSocketAddress[] addresses = new InetSocketAddress[layout.getWorkerCount()+1];
+        for(int i=0; i<addresses.length; i++){
+            addresses[i] = new InetSocketAddress(InetAddress.getLoopbackAddress(), firstPort+i);
+        }
+        return new SocketHaloTransport(endpoint, peers, addresses);
+    }
+
+    // Add up the counts and tile states of the workers every time step and tell them whether to continue.
+    static void coordinate(SubdomainLayout layout, HaloTransport transport, OutputPipeline output, int maxDays)
+            throws IOException {
+        SimulationStatistics statistics = new SimulationStatistics();
+        FrontierMap frontier = new FrontierMap(layout.width, layout.height, layout.radius);
+        byte[] tileStates = new byte[frontier.tilesX*frontier.tilesY];
+        byte[] message = new byte[layout.getMaxMessage()];
+        int day = 0, daysStable = 0;
+        boolean stable = false;
+        while(true){
+            receiveReports(layout, transport, statistics, frontier, tileStates, message);
+            output.publish(day, statistics);
+
+            if(day > 0){
+                if(statistics.isUnchanged()){ daysStable++; }
+                else{ daysStable = 0; }
+                // Stop right away once no cell can change anymore, like main.
+                stable = (daysStable == 3 || frontier.isEmpty() || day >= maxDays);
+            }
+            sendDecision(layout, transport, !stable, message);
+            if(stable){ break; }
+            day++;
+        }
+
+        System.out.println("*****************************************************************************************");
+        System.out.println("Infections: "+statistics.getInfections());
+        System.out.println("Deaths: "+statistics.getDeaths());
+        System.out.println("Immunity: "+statistics.getRemovals());
+    }
+
+    // Receive the report of every worker for the time step, adding up their counts into the statistics and combining
+    // the states of their tiles into the frontier map of the whole simulation space. The tile states and message are
+    // scratch space, one byte for every tile of the frontier map and as long as the longest message.
+    static void receiveReports(SubdomainLayout layout, HaloTransport transport, SimulationStatistics statistics,
+                               FrontierMap frontier, byte[] tileStates, byte[] message) throws IOException {
+        statistics.clear();
+        Arrays.fill(tileStates, (byte) 0);
+        for(int worker=0; worker<layout.getWorkerCount(); worker++){
+            transport.receive(worker, message, layout.getReportBytes(worker));
+            ByteBuffer buffer = ByteBuffer.wrap(message);
+            statistics.infections += buffer.getInt();
+            statistics.deaths += buffer.getInt();
+            statistics.removals += buffer.getInt();
+            statistics.newInfections += buffer.getInt();
+            statistics.newDeaths += buffer.getInt();
+            statistics.newRemovals += buffer.getInt();
+            // Tiles shared by neighboring subdomains hold the states of both.
+            for(int ty=0; ty<layout.getTileRows(worker); ty++){
+                for(int tx=0; tx<layout.getTileColumns(worker); tx++){
+                    tileStates[frontier.getTile(layout.getTileXStart(worker)+tx, layout.getTileYStart(worker)+ty)]
+                            |= buffer.get();
+                }
+            }
+        }
+        for(int tile=0; tile<tileStates.length; tile++){ frontier.setTileState(tile, tileStates[tile]); }
+        frontier.invalidate();
+    }
+
+    // Tell every worker whether to step another day.
+    static void sendDecision(SubdomainLayout layout, HaloTransport transport, boolean continuing, byte[] message)
+            throws IOException {
+        message[0] = (byte) (continuing ? 1:0);
+        for(int worker=0; worker<layout.getWorkerCount(); worker++){ transport.send(worker, message, 1); }
+    }
+}
@@ -0,0 +1,182 @@
+package epidemic;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// This class runs every configuration of a parameter sweep once for every seed, many simulations at a time.
+// Each simulation is stepped on a single thread of a fixed pool. A simulation is only started once its estimated memory
+// fits in the memory budget, so large grids run fewer at a time instead of running out of memory.
+// The outcome of every run is written as soon as it finishes, and the summary statistics of a configuration are
+// written as soon as all of its runs have finished.
+public class EnsembleRunner {
+    private static final String[] METRICS = {"Days", "Infections", "Deaths", "Removed Cells"};
+    private static final int[] PERCENTILES = {5, 50, 95};
+
+    private final SweepSpecification sweep;
+    private final int threadCount;
+    private final long memoryBudget;
+    private final BufferedWriter runWriter, summaryWriter;
+    // Outcomes of the finished runs of every configuration that still has runs left.
+    private final HashMap<Integer, ArrayList<int[]>> outcomes = new HashMap<>();
+    private final HashMap<Integer, Integer> finishedRuns = new HashMap<>();
+
+    // Parameters:
+    // specification = the parameter sweep to run
+    // threads = number of simulations to run at once
+    // memory = bytes the running simulations may take up together
+    // runs = writer for the outcome of every run
+    // summary = writer for the summary statistics of every configuration
+    EnsembleRunner(SweepSpecification specification, int threads, long memory, BufferedWriter runs,
+                   BufferedWriter summary){
+        sweep = specification;
+        threadCount = Math.max(1, threads);
+        memoryBudget = memory;
+        runWriter = runs;
+        summaryWriter = summary;
+    }
+
+    // Usage: EnsembleRunner <sweep properties> <runs csv> <summary csv> [threads]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length < 3){
+            System.out.println("Usage: EnsembleRunner <sweep properties> <runs csv> <summary csv> [threads]");
+            return;
+        }
+        SweepSpecification sweep = SweepSpecification.read(args[0]);
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]):Runtime.getRuntime().availableProcessors();
+        // Leave a quarter of the heap for everything besides the simulations.
+        long memory = Runtime.getRuntime().maxMemory()/4*3;
+
+        try(BufferedWriter runs = new BufferedWriter(new FileWriter(args[1]));
+            BufferedWriter summary = new BufferedWriter(new FileWriter(args[2]))){
+            new EnsembleRunner(sweep, threads, memory, runs, summary).run();
+        }
+    }
+
+    // Run every configuration of the sweep once for every seed and wait until all runs have finished.
+    public void run() throws IOException, InterruptedException {
+        writeLine(runWriter, SweepConfiguration.getCsvHeaders()+", Run, Seed, "+String.join(", ", METRICS));
+        StringBuilder headers = new StringBuilder(SweepConfiguration.getCsvHeaders()+", Runs");
+        for(String metric : METRICS){
+            headers.append(", ").append(metric).append(" Mean, ").append(metric).append(" Variance");
+            for(int percentile : PERCENTILES){ headers.append(", ").append(metric).append(" P").append(percentile); }
+        }
+        writeLine(summaryWriter, headers.toString());
+
+        // Memory is handed out in kilobytes so the budget fits in the permits of a semaphore.
+        int budget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget/1024));
+        Semaphore memory = new Semaphore(budget);
+        // Only queue a couple of runs per thread so the queue does not hold the whole sweep.
+        Semaphore slots = new Semaphore(threadCount*2);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for(SweepConfiguration configuration : sweep.configurations){
+                // A run larger than the whole budget still runs, just on its own.
+                int permits = (int) Math.min(budget, Math.max(1, configuration.estimateBytes(sweep.eventDriven)/1024));
+                for(int run=0; run<sweep.runs; run++){
+                    final int runNumber = run;
+                    slots.acquire();
+                    memory.acquire(permits);
+                    executor.execute(() -> {
+                        try { runSimulation(configuration, runNumber); }
+                        finally {
+                            memory.release(permits);
+                            slots.release();
+                        }
+                    });
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    // Simulate until no cell can change anymore, the counts stay the same for three days or the maximum number of days
+    // is reached, the same way main does.
+    private void runSimulation(SweepConfiguration configuration, int run){
+        long seed = sweep.seed+run;
+        int[] outcome = null;
+        try {
+            Simulation simulation = configuration.createSimulation(seed);
+            simulation.setSparseStepping(true);
+            simulation.setEventDriven(sweep.eventDriven);
+            SimulationStatistics statistics = simulation.getStatistics();
+            int day = 0, daysStable = 0;
+            while(daysStable < 3 && !simulation.isSettled() && day < sweep.maxDays){
+                simulation.getNextTimeStep();
+                simulation.updateTimeStep();
+                day++;
+                if(statistics.isUnchanged()){ daysStable++; }
+                else{ daysStable = 0; }
+            }
+            outcome = new int[]{day, statistics.getInfections(), statistics.getDeaths(), statistics.getRemovals()};
+            writeLine(runWriter, configuration.toCsv()+", "+run+", "+seed+", "+outcome[0]+", "+outcome[1]+", "
+                    +outcome[2]+", "+outcome[3]);
+        } catch(RuntimeException | IOException e){
+            System.err.println("Run "+run+" of configuration "+configuration.id+" failed.");
+            e.printStackTrace();
+        } finally {
+            finishRun(configuration, outcome);
+        }
+    }
+
+    // Record the outcome of a run, which is null if it failed, and summarize the configuration once all its runs
+    // have finished.
+    private void finishRun(SweepConfiguration configuration, int[] outcome){
+        ArrayList<int[]> configurationOutcomes;
+        synchronized(this){
+            configurationOutcomes = outcomes.computeIfAbsent(configuration.id, id -> new ArrayList<>());
+            if(outcome != null){ configurationOutcomes.add(outcome); }
+            int finished = finishedRuns.merge(configuration.id, 1, Integer::sum);
+            if(finished < sweep.runs){ return; }
+            outcomes.remove(configuration.id);
+            finishedRuns.remove(configuration.id);
+        }
+        try { writeLine(summaryWriter, summarize(configuration, configurationOutcomes)); }
+        catch(IOException e){ e.printStackTrace(); }
+    }
+
+    // Mean, sample variance and percentiles of every metric over the runs of a configuration.
+    private static String summarize(SweepConfiguration configuration, ArrayList<int[]> runs){
+        StringBuilder builder = new StringBuilder(configuration.toCsv()).append(", ").append(runs.size());
+        for(int metric=0; metric<METRICS.length; metric++){
+            double[] values = new double[runs.size()];
+            double mean = 0, variance = 0;
+            for(int i=0; i<values.length; i++){
+                values[i] = runs.get(i)[metric];
+                mean += values[i];
+            }
+            mean = (values.length > 0) ? mean/values.length:Double.NaN;
+            for(double value : values){ variance += (value-mean)*(value-mean); }
+            variance = (values.length > 1) ? variance/(values.length-1):0;
+            Arrays.sort(values);
+            builder.append(", ").append(mean).append(", ").append(variance);
+            for(int percentile : PERCENTILES){ builder.append(", ").append(getPercentile(values, percentile)); }
+        }
+        return builder.toString();
+    }
+
+    // Nearest rank percentile of the sorted values.
+    private static double getPercentile(double[] sorted, int percentile){
+        if(sorted.length == 0){ return Double.NaN; }
+        int rank = (int) Math.ceil(percentile/100.0*sorted.length);
+        return sorted[Math.max(0, rank-1)];
+    }
+
+    // Write a line and flush it right away, so finished runs are never lost.
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        synchronized(writer){
+            writer.write(line);
+            writer.write("\n");
+            writer.flush();
+        }
+    }
+}
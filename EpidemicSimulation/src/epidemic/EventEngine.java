@@ -0,0 +1,304 @@
+package epidemic;
+
+import java.util.Arrays;
+
+// This class steps a simulation by scheduling the next change of every cell that can change, instead of evaluating
+// the whole simulation space every time step. While few cells are infected almost every cell is settled, so a time
+// step only costs as much as the cells changing on it, and time steps without any change cost nothing.
+// Three kinds of events are kept in a priority queue ordered by time step:
+// - An infected cell that is still progressing is rolled ahead one time step after another with the draws the grid
+//   engine would make, up to the time step it is removed or dies. Nothing else changes the cell on the way there.
+// - A susceptible cell with a contagious neighbor is rolled ahead the same way up to the time step it is infected,
+//   as long as its contagious neighbors stay the same. Every new infection rolls its susceptible neighbors again from
+//   the next time step, and an event is simply dropped if its cell was infected already or it no longer infects.
+// - A cell that was not infected within the time steps searched ahead is searched again from where the search ended.
+// Every draw comes from the same stream and uses the same rules as the grid engine, so both engines produce exactly
+// the same cells and statistics. The current grid always holds the flags of every cell. Only the days infected of
+// progressing cells fall behind, and they are brought up to date whenever the grid is read.
+// The tile states of the frontier map are kept up to date as well, so the simulation settles on the same time step.
+class EventEngine {
+    // Kinds of events, in the lowest bits of an event.
+    private static final int INFECTION = 0, SEARCH = 1, PROGRESSION = 2;
+    // An event packs the time step, the cell index, the state the cell changes to and the kind of event.
+    private static final int STATE_SHIFT = 2, INDEX_SHIFT = 10, TIME_STEP_SHIFT = 41;
+    // Latest time step an event can be scheduled on.
+    static final long MAX_TIME_STEP = (1L << (63-TIME_STEP_SHIFT))-1;
+    // Most time steps rolled ahead for a susceptible cell before the search is put off.
+    private static final int SEARCH_STEPS = 32;
+
+    private final CellGrid cells, scratch;
+    private final NeighborhoodStencil stencil;
+    private final InfectionTable infection;
+    private final InfectionEvaluation evaluation;
+    private final FrontierMap frontier;
+    private final RandomStream rand;
+    private final double removalDecay;
+    private final int daysToDeath;
+    private final int[] counts;
+    // Cells of every tile that are susceptible, contagious, and infected and still progressing.
+    private final int[] susceptible, contagious, progressing;
+    private final EventQueue queue = new EventQueue();
+    // Cells infected on the time step being calculated, the progression events of it, and the cells next to them.
+    private int[] infected = new int[64], exposed = new int[64];
+    private long[] progressed = new long[64];
+    private int infectedCount, exposedCount, progressedCount;
+    // The time step calculated but not applied to the grid yet, or -1.
+    private long pendingTimeStep = -1;
+
+    // The grid is stepped in place. The scratch grid shares its resistance and is written by the rules of single
+    // cells, which the engine never reads back beyond the cell being rolled.
+    EventEngine(CellGrid grid, CellGrid scratchGrid, NeighborhoodStencil neighborhood, InfectionTable infectionTable,
+                InfectionEvaluation infectionEvaluation, FrontierMap frontierMap, RandomStream stream,
+                double removalDecayRate, int deathTime){
+        cells = grid;
+        scratch = scratchGrid;
+        stencil = neighborhood;
+        infection = infectionTable;
+        evaluation = infectionEvaluation;
+        frontier = frontierMap;
+        rand = stream;
+        removalDecay = removalDecayRate;
+        daysToDeath = deathTime;
+        counts = new int[stencil.radius+1];
+        susceptible = new int[frontier.tilesX*frontier.tilesY];
+        contagious = new int[susceptible.length];
+        progressing = new int[susceptible.length];
+    }
+
+    // Estimated bytes taken up by the engine of a simulation space of the given size at its busiest. The queue can grow
+    // to about four events per cell once dropped events pile up, and the cells infected on one time step, their
+    // neighbors and their progression events to about nine ints per cell. Plus the counts of every tile.
+    static long estimateBytes(int w, int h){
+        return 72L*w*h+12L*((w+FrontierMap.TILE_SIZE-1)/FrontierMap.TILE_SIZE)
+                *((h+FrontierMap.TILE_SIZE-1)/FrontierMap.TILE_SIZE);
+    }
+
+    // Schedule every change from the current grid on, which is the grid of the time step.
+    void start(long timeStep){
+        queue.clear();
+        pendingTimeStep = -1;
+        for(int ty=0; ty<frontier.tilesY; ty++){
+            for(int tx=0; tx<frontier.tilesX; tx++){
+                int tile = frontier.getTile(tx, ty);
+                susceptible[tile] = contagious[tile] = progressing[tile] = 0;
+                for(int y=frontier.getYStart(ty); y<frontier.getYEnd(ty); y++){
+                    for(int x=frontier.getXStart(tx); x<frontier.getXEnd(tx); x++){
+                        byte cell = cells.state[cells.getIndex(x, y)];
+                        if((cell & CellGrid.CONTAGIOUS) == 0){ susceptible[tile]++; }
+                        else{ contagious[tile]++; }
+                        if((cell & CellGrid.FLAGS) == CellGrid.CONTAGIOUS){ progressing[tile]++; }
+                    }
+                }
+                updateTile(tile);
+            }
+        }
+        // Only frontier tiles hold cells that can change.
+        frontier.updateFrontier();
+        for(int ty=0; ty<frontier.tilesY; ty++){
+            for(int tx=0; tx<frontier.tilesX; tx++){
+                if(!frontier.isFrontier(frontier.getTile(tx, ty))){ continue; }
+                for(int y=frontier.getYStart(ty); y<frontier.getYEnd(ty); y++){
+                    for(int x=frontier.getXStart(tx); x<frontier.getXEnd(tx); x++){
+                        int index = cells.getIndex(x, y);
+                        byte cell = cells.state[index];
+                        if((cell & CellGrid.FLAGS) == CellGrid.CONTAGIOUS){ scheduleProgression(index, timeStep); }
+                        else if((cell & CellGrid.CONTAGIOUS) == 0 && isExposed(index, x, y)){
+                            scheduleInfection(index, timeStep+1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Find the changes of the time step being calculated from the grid of the time step before it and count them.
+    // Calculating the same time step again before it is applied gives the same changes.
+    void step(long timeStep, SimulationStatistics transitions){
+        if(pendingTimeStep == timeStep){ return; }
+        infectedCount = progressedCount = 0;
+        long previous = -1;
+        while(!queue.isEmpty() && getTimeStep(queue.peek()) <= timeStep){
+            long event = queue.poll();
+            // The same event scheduled more than once comes out of the queue in a row.
+            if(event == previous){ continue; }
+            previous = event;
+            int index = getIndex(event);
+            int kind = (int) (event & 3);
+            if(kind == PROGRESSION){
+                if(progressedCount == progressed.length){ progressed = Arrays.copyOf(progressed, 2*progressedCount); }
+                progressed[progressedCount++] = event;
+            } else if(!cells.isContagious(index)){
+                // Searching again from this time step can schedule the infection on it, which comes up next.
+                if(kind == SEARCH){ scheduleInfection(index, timeStep); }
+                else if(infects(index, index%cells.width, index/cells.width, timeStep)){
+                    if(infectedCount == infected.length){ infected = Arrays.copyOf(infected, 2*infectedCount); }
+                    infected[infectedCount++] = index;
+                }
+            }
+        }
+        // A cell can be found infected by more than one search.
+        infectedCount = sortUnique(infected, infectedCount);
+
+        transitions.clearTransitions();
+        transitions.newInfections = infectedCount;
+        for(int i=0; i<progressedCount; i++){
+            int cell = getState(progressed[i]);
+            if((cell & CellGrid.REMOVED) != 0){ transitions.newRemovals++; }
+            if((cell & CellGrid.DEAD) != 0){ transitions.newDeaths++; }
+        }
+        pendingTimeStep = timeStep;
+    }
+
+    // Apply the changes of the calculated time step to the grid and schedule what follows from them.
+    void apply(){
+        if(pendingTimeStep < 0){ return; }
+        long timeStep = pendingTimeStep;
+        pendingTimeStep = -1;
+        for(int i=0; i<progressedCount; i++){
+            int index = getIndex(progressed[i]);
+            cells.state[index] = (byte) getState(progressed[i]);
+            progressing[getTile(index)]--;
+            updateTile(getTile(index));
+        }
+        for(int i=0; i<infectedCount; i++){
+            int index = infected[i];
+            byte cell = (byte) (cells.state[index] | CellGrid.CONTAGIOUS);
+            cells.state[index] = cell;
+            int tile = getTile(index);
+            susceptible[tile]--;
+            contagious[tile]++;
+            // A cell that was removed before it was infected does not progress.
+            if((cell & CellGrid.FLAGS) == CellGrid.CONTAGIOUS){
+                progressing[tile]++;
+                scheduleProgression(index, timeStep);
+            }
+            updateTile(tile);
+        }
+
+        // Every susceptible neighbor of a new infection now has another contagious neighbor to roll for.
+        exposedCount = 0;
+        for(int i=0; i<infectedCount; i++){
+            int index = infected[i];
+            int x = index%cells.width, y = index/cells.width;
+            boolean interior = stencil.isInterior(x, y);
+            // Stencils are symmetric, so the cells this cell is a neighbor of are its own neighbors.
+            for(int k=0; k<stencil.size(); k++){
+                int neighbor = stencil.getNeighbor(x, y, index, interior, k);
+                if(!cells.isContagious(neighbor)){
+                    if(exposedCount == exposed.length){ exposed = Arrays.copyOf(exposed, 2*exposedCount); }
+                    exposed[exposedCount++] = neighbor;
+                }
+            }
+        }
+        exposedCount = sortUnique(exposed, exposedCount);
+        for(int i=0; i<exposedCount; i++){ scheduleInfection(exposed[i], timeStep+1); }
+    }
+
+    // Bring the days infected of every progressing cell in the grid up to date for the time step.
+    void materialize(long timeStep){
+        for(int i=0; i<queue.size(); i++){
+            long event = queue.get(i);
+            if((event & 3) == PROGRESSION && getTimeStep(event) > timeStep){
+                int days = CellGrid.getDaysInfected((byte) getState(event))-(int) (getTimeStep(event)-timeStep);
+                cells.state[getIndex(event)] = CellGrid.pack(CellGrid.CONTAGIOUS, days);
+            }
+        }
+    }
+
+    // Roll the susceptible cell ahead from the time step until it is infected, as long as its neighbors stay the same.
+    // Searches end on whole multiples of the search steps, so the searches a cell is left with from every time its
+    // neighbors changed line up into the same events and are only continued once.
+    private void scheduleInfection(int index, long fromTimeStep){
+        int x = index%cells.width, y = index/cells.width;
+        long searchEnd = (fromTimeStep/SEARCH_STEPS+1)*SEARCH_STEPS;
+        for(long timeStep=fromTimeStep; timeStep<searchEnd; timeStep++){
+            if(infects(index, x, y, timeStep)){
+                schedule(timeStep, index, 0, INFECTION);
+                return;
+            }
+        }
+        schedule(searchEnd, index, 0, SEARCH);
+    }
+
+    // Roll the progressing cell ahead from the time step it is in until it is removed or dies.
+    // The days to death are at most the days infected a cell can hold, so every cell dies before they saturate.
+    private void scheduleProgression(int index, long fromTimeStep){
+        byte cell = cells.state[index];
+        for(long timeStep=fromTimeStep+1;; timeStep++){
+            CellularAutomaton.progressInfection(cells, scratch, index, cell, rand, timeStep, removalDecay, daysToDeath);
+            cell = scratch.state[index];
+            if((cell & (CellGrid.REMOVED | CellGrid.DEAD)) != 0){
+                schedule(timeStep, index, cell, PROGRESSION);
+                return;
+            }
+        }
+    }
+
+    // Check if the susceptible cell is infected on the time step by the contagious cells of the grid.
+    private boolean infects(int index, int x, int y, long timeStep){
+        byte cell = cells.state[index];
+        if(evaluation == InfectionEvaluation.RingAggregated){
+            countRings(index, x, y);
+            scratch.state[index] = cell;
+            CellularAutomaton.infectAggregated(scratch, index, cell, counts, rand, timeStep, infection);
+        } else {
+            CellularAutomaton.getNextState(cells, scratch, x, y, index, stencil, rand, timeStep, infection,
+                    removalDecay, daysToDeath);
+        }
+        return (scratch.state[index] & CellGrid.CONTAGIOUS) != 0;
+    }
+
+    // Count the contagious neighbors on every radius the way the ring counter does, without building its tables.
+    private void countRings(int index, int x, int y){
+        boolean interior = stencil.isInterior(x, y);
+        for(int r=1; r<=stencil.radius; r++){
+            counts[r] = 0;
+            for(int k=stencil.radiusStart[r-1]; k<stencil.radiusStart[r]; k++){
+                if(cells.isContagious(stencil.getNeighbor(x, y, index, interior, k))){ counts[r]++; }
+            }
+        }
+    }
+
+    private boolean isExposed(int index, int x, int y){
+        boolean interior = stencil.isInterior(x, y);
+        for(int k=0; k<stencil.size(); k++){
+            if(cells.isContagious(stencil.getNeighbor(x, y, index, interior, k))){ return true; }
+        }
+        return false;
+    }
+
+    private void schedule(long timeStep, int index, int cell, int kind){
+        if(timeStep > MAX_TIME_STEP){
+            throw new IllegalStateException("Events can only be scheduled up to time step "+MAX_TIME_STEP+".");
+        }
+        queue.add(timeStep << TIME_STEP_SHIFT | (long) index << INDEX_SHIFT | (cell & 0xFF) << STATE_SHIFT | kind);
+    }
+
+    private static long getTimeStep(long event){ return event >>> TIME_STEP_SHIFT; }
+    private static int getIndex(long event){ return (int) (event >>> INDEX_SHIFT) & Integer.MAX_VALUE; }
+    private static int getState(long event){ return (int) (event >>> STATE_SHIFT) & 0xFF; }
+
+    private int getTile(int index){
+        return frontier.getTile(index%cells.width/FrontierMap.TILE_SIZE, index/cells.width/FrontierMap.TILE_SIZE);
+    }
+
+    // Set the state of the tile from its counts, the same flags the grid engine finds from its cells.
+    private void updateTile(int tile){
+        byte state = 0;
+        if(susceptible[tile] > 0){ state |= FrontierMap.SUSCEPTIBLE; }
+        if(contagious[tile] > 0){ state |= FrontierMap.CONTAGIOUS; }
+        if(progressing[tile] > 0){ state |= FrontierMap.PROGRESSING; }
+        frontier.setTileState(tile, state);
+        frontier.invalidate();
+    }
+
+    // Sort the values and drop repeated ones. Returns the number of values left.
+    private static int sortUnique(int[] values, int length){
+        Arrays.sort(values, 0, length);
+        int unique = 0;
+        for(int i=0; i<length; i++){
+            if(unique == 0 || values[i] != values[unique-1]){ values[unique++] = values[i]; }
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,50 @@
+package epidemic;
+
+import java.util.Arrays;
+
+// This class is a priority queue of events packed into longs, a binary min heap over a growing array.
+// Events are ordered by their value, so the time step of an event goes in the highest bits. Nothing is allocated
+// except when the array has to grow.
+class EventQueue {
+    private long[] heap = new long[1024];
+    private int size;
+
+    int size(){ return size; }
+    boolean isEmpty(){ return size == 0; }
+    void clear(){ size = 0; }
+
+    // The event at the position of the heap, in no particular order.
+    long get(int i){ return heap[i]; }
+
+    // The smallest event. The queue must not be empty.
+    long peek(){ return heap[0]; }
+
+    void add(long event){
+        if(size == heap.length){ heap = Arrays.copyOf(heap, 2*heap.length); }
+        int i = size++;
+        while(i > 0){
+            int parent = (i-1) >>> 1;
+            if(heap[parent] <= event){ break; }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = event;
+    }
+
+    // Remove and return the smallest event. The queue must not be empty.
+    long poll(){
+        long smallest = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        while(true){
+            int child = 2*i+1;
+            if(child >= size){ break; }
+            if(child+1 < size && heap[child+1] < heap[child]){ child++; }
+            if(last <= heap[child]){ break; }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if(size > 0){ heap[i] = last; }
+        return smallest;
+    }
+}
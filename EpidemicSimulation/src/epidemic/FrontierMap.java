@@ -0,0 +1,127 @@
+package epidemic;
+
+// This class divides the simulation space into square tiles and tracks which tiles hold cells that can change.
+// A cell can only change if it is infected and still progressing, or if it is not contagious and has a contagious
+// cell within the contagious radius. Tiles without such cells are settled and are carried over unchanged.
+class FrontierMap {
+    static final int TILE_SIZE = 32;
+    // Tile state flags, set if any cell of the tile is in that state.
+    static final byte CONTAGIOUS = 1, SUSCEPTIBLE = 2, PROGRESSING = 4;
+
+    final int width, height, tilesX, tilesY;
+    // Number of tiles away a contagious cell can reach in each direction.
+    private final int reachX, reachY;
+    // Tile states of the current grid and of the grid being calculated.
+    byte[] tileState, nextTileState;
+    // Tiles evaluated while calculating the next grid, and tiles where the two grids may differ.
+    boolean[] stepped, backStale;
+    // Tiles holding cells that can change on the next time step.
+    private final boolean[] frontier, nearContagious;
+    private boolean frontierCurrent;
+    private int frontierTiles;
+
+    FrontierMap(int w, int h, int radius){
+        width = w;
+        height = h;
+        tilesX = (w+TILE_SIZE-1)/TILE_SIZE;
+        tilesY = (h+TILE_SIZE-1)/TILE_SIZE;
+        // A partial tile at the end of a row or column can put one more tile boundary within reach once wrapped.
+        reachX = (radius == 0) ? 0:radius/TILE_SIZE+1+((w%TILE_SIZE != 0) ? 1:0);
+        reachY = (radius == 0) ? 0:radius/TILE_SIZE+1+((h%TILE_SIZE != 0) ? 1:0);
+        tileState = new byte[tilesX*tilesY];
+        nextTileState = new byte[tilesX*tilesY];
+        stepped = new boolean[tilesX*tilesY];
+        backStale = new boolean[tilesX*tilesY];
+        frontier = new boolean[tilesX*tilesY];
+        nearContagious = new boolean[tilesX*tilesY];
+    }
+
+    // Estimated bytes taken up by the frontier map of a simulation space of the given size, six flags per tile.
+    static long estimateBytes(int w, int h){
+        return 6L*((w+TILE_SIZE-1)/TILE_SIZE)*((h+TILE_SIZE-1)/TILE_SIZE);
+    }
+
+    int getTile(int tx, int ty){ return ty*tilesX+tx; }
+    int getXStart(int tx){ return tx*TILE_SIZE; }
+    int getXEnd(int tx){ return Math.min(width, (tx+1)*TILE_SIZE); }
+    int getYStart(int ty){ return ty*TILE_SIZE; }
+    int getYEnd(int ty){ return Math.min(height, (ty+1)*TILE_SIZE); }
+
+    // Get the tile state flags of the automaton at the index.
+    static byte getCellState(CellGrid grid, int index){
+        if(!grid.isContagious(index)){ return SUSCEPTIBLE; }
+        if(grid.isRemoved(index) || grid.isDead(index)){ return CONTAGIOUS; }
+        return CONTAGIOUS | PROGRESSING;
+    }
+
+    // Recalculate every tile state from a newly populated grid. The other grid holds nothing useful yet.
+    void reset(CellGrid grid){
+        for(int ty=0; ty<tilesY; ty++){
+            for(int tx=0; tx<tilesX; tx++){
+                byte state = 0;
+                for(int y=getYStart(ty); y<getYEnd(ty); y++){
+                    for(int x=getXStart(tx); x<getXEnd(tx); x++){ state |= getCellState(grid, grid.getIndex(x, y)); }
+                }
+                setTileState(getTile(tx, ty), state);
+            }
+        }
+        invalidate();
+    }
+
+    // Set the state of a tile of a newly populated grid. The other grid holds nothing useful yet.
+    void setTileState(int tile, byte state){
+        tileState[tile] = state;
+        backStale[tile] = true;
+    }
+
+    // The tile states have been set again, so the frontier has to be found again.
+    void invalidate(){ frontierCurrent = false; }
+
+    // Check if the tile holds cells that can change on the next time step.
+    // The frontier has to be updated for the current grid first.
+    boolean isFrontier(int tile){ return frontier[tile]; }
+
+    // Check if no cell can ever change again.
+    boolean isEmpty(){
+        updateFrontier();
+        return frontierTiles == 0;
+    }
+
+    // Mark every tile with a contagious cell within reach, first along the rows and then along the columns.
+    void updateFrontier(){
+        if(frontierCurrent){ return; }
+        for(int ty=0; ty<tilesY; ty++){
+            for(int tx=0; tx<tilesX; tx++){
+                boolean near = false;
+                for(int d=-Math.min(reachX, tilesX/2); d<=Math.min(reachX, (tilesX-1)/2) && !near; d++){
+                    near = (tileState[getTile(Math.floorMod(tx+d, tilesX), ty)] & CONTAGIOUS) != 0;
+                }
+                nearContagious[getTile(tx, ty)] = near;
+            }
+        }
+        frontierTiles = 0;
+        for(int tx=0; tx<tilesX; tx++){
+            for(int ty=0; ty<tilesY; ty++){
+                boolean near = false;
+                for(int d=-Math.min(reachY, tilesY/2); d<=Math.min(reachY, (tilesY-1)/2) && !near; d++){
+                    near = nearContagious[getTile(tx, Math.floorMod(ty+d, tilesY))];
+                }
+                int tile = getTile(tx, ty);
+                frontier[tile] = (tileState[tile] & PROGRESSING) != 0 || (near && (tileState[tile] & SUSCEPTIBLE) != 0);
+                if(frontier[tile]){ frontierTiles++; }
+            }
+        }
+        frontierCurrent = true;
+    }
+
+    // The calculated grid became the current grid. Tiles that were evaluated now differ between the two grids.
+    void swap(){
+        byte[] previous = tileState;
+        tileState = nextTileState;
+        nextTileState = previous;
+        boolean[] stale = backStale;
+        backStale = stepped;
+        stepped = stale;
+        frontierCurrent = false;
+    }
+}
@@ -0,0 +1,17 @@
+package epidemic;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// This interface carries messages between the endpoints of a distributed simulation: the workers stepping the
+// subdomains of the simulation space and the coordinator. Endpoints are numbered from 0.
+// Messages from one endpoint to another arrive in the order they were sent. An endpoint may send messages to itself,
+// which happens when a subdomain is its own neighbor.
+public interface HaloTransport extends Closeable {
+    // Send the first length bytes of the message to the endpoint.
+    void send(int endpoint, byte[] message, int length) throws IOException;
+
+    // Receive the next message sent by the endpoint into the first length bytes of the message. The message sent has to
+    // be exactly that long.
+    void receive(int endpoint, byte[] message, int length) throws IOException;
+}
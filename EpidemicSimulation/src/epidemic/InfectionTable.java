@@ -0,0 +1,38 @@
+package epidemic;
+
+import static java.lang.Math.pow;
+
+// This class holds the chance of a contagious neighbor infecting a cell for every radius of the neighborhood.
+// Neighbors farther away have less chance to infect a cell unless the contagion decay factor is 1.
+// If the decay factor is within the range 0 exclusive and 1 inclusive, the chance of each radius is the chance of the
+// radius before it multiplied by the decay factor to the power of that radius. Otherwise standard exponential decay
+// is used and the chance of the radius before it is squared.
+public class InfectionTable {
+    // Chance of infection by one contagious neighbor on each radius, starting at radius 1.
+    final double[] chance;
+    // Natural logarithm of the chance of not being infected by one contagious neighbor on each radius.
+    final double[] logMiss;
+
+    InfectionTable(int radius, double baseInfectionChance, double contagionDecay){
+        chance = new double[radius+1];
+        logMiss = new double[radius+1];
+        double infectionChance = baseInfectionChance;
+        for(int r=1; r<=radius; r++){
+            chance[r] = infectionChance;
+            logMiss[r] = (infectionChance >= 1) ? Double.NEGATIVE_INFINITY:Math.log1p(-infectionChance);
+            if(contagionDecay > 0 && contagionDecay <= 1){
+                infectionChance = infectionChance * pow(contagionDecay, (double) r);
+            } else { infectionChance *= infectionChance; }
+        }
+    }
+
+    // Chance that at least one of the contagious neighbors infects the cell, given the number of contagious neighbors
+    // on each radius.
+    public double getInfectionChance(int[] contagiousCounts){
+        double logMissAll = 0;
+        for(int r=1; r<chance.length; r++){
+            if(contagiousCounts[r] > 0){ logMissAll += contagiousCounts[r]*logMiss[r]; }
+        }
+        return -Math.expm1(logMissAll);
+    }
+}
@@ -0,0 +1,115 @@
+package epidemic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// This class is a precomputed table of the neighbors around a cell for one neighborhood model, radius and simulation
+// space size. Neighbors are ordered from inner radius neighbors to outer radius neighbors and each radius is walked in
+// the same order the simulation has always visited them.
+// Cells at least a radius away from every edge find their neighbors with a fixed index offset. Cells closer to an edge
+// wrap around the simulation space using the precomputed wrap tables instead of branching on every step.
+// Every simulation has its own stencil, so the wrap tables go away with it. Only the offset tables, which depend on the
+// neighborhood model and radius alone, are shared by every stencil with the same model and radius.
+public class NeighborhoodStencil {
+    // Coordinate offsets and radius starts of every model and radius in use, which are never changed once made.
+    private static final ConcurrentHashMap<List<Object>, int[][]> offsetTables = new ConcurrentHashMap<>();
+
+    final Neighborhood model;
+    final int radius, width, height;
+    // Offsets of every neighbor, and the first neighbor of each radius. Radius r holds the neighbors from
+    // radiusStart[r-1] up to but not including radiusStart[r].
+    final int[] xOffsets, yOffsets, indexOffsets, radiusStart;
+    // Wrapped x coordinate and wrapped row start index of every coordinate within a radius of the simulation space.
+    private final int[] wrappedX, wrappedRow;
+
+    private NeighborhoodStencil(Neighborhood neighborhood, int r, int w, int h){
+        model = neighborhood;
+        width = w;
+        height = h;
+
+        radius = limitRadius(r, w, h);
+
+        int[][] offsets = offsetTables.computeIfAbsent(Arrays.<Object>asList(neighborhood, radius),
+                key -> createOffsets(neighborhood, radius));
+        xOffsets = offsets[0];
+        yOffsets = offsets[1];
+        radiusStart = offsets[2];
+        indexOffsets = new int[xOffsets.length];
+        for(int i=0; i<indexOffsets.length; i++){ indexOffsets[i] = yOffsets[i]*width+xOffsets[i]; }
+
+        wrappedX = new int[width+2*radius];
+        for(int x=-radius; x<width+radius; x++){ wrappedX[x+radius] = Math.floorMod(x, width); }
+        wrappedRow = new int[height+2*radius];
+        for(int y=-radius; y<height+radius; y++){ wrappedRow[y+radius] = Math.floorMod(y, height)*width; }
+    }
+
+    // Returns a new stencil for the neighborhood model, radius and simulation space size.
+    public static NeighborhoodStencil create(Neighborhood neighborhood, int radius, int width, int height){
+        return new NeighborhoodStencil(neighborhood, radius, width, height);
+    }
+
+    // Get the x and y offsets of the neighbors within each radius of the neighborhood model in order from inner to
+    // outer radius, and the first neighbor of each radius.
+    private static int[][] createOffsets(Neighborhood model, int radius){
+        // Each Von Neumann radius holds radius*4 neighbors and each Moore radius holds radius*8 neighbors.
+        int radiusMultiplier = (model == Neighborhood.VonNeumann) ? 4:8;
+        int size = radiusMultiplier*radius*(radius+1)/2;
+        int[] xOffsets = new int[size], yOffsets = new int[size], radiusStart = new int[radius+1];
+        int count = 0;
+        for(int i=1; i<=radius; i++){
+            if(model == Neighborhood.VonNeumann){ count = addVonNeumannRadius(xOffsets, yOffsets, i, count); }
+            else{ count = addMooreRadius(xOffsets, yOffsets, i, count); }
+            radiusStart[i] = count;
+        }
+        return new int[][]{xOffsets, yOffsets, radiusStart};
+    }
+
+    // Limit the radius to smaller dimension of the simulation space so no radius wraps onto itself.
+    static int limitRadius(int radius, int width, int height){
+        return Math.max(0, Math.min(radius, Math.min((width-1)/2, (height-1)/2)));
+    }
+
+    // Add the offsets along the specified Von Neumann radius starting at the far left of the radius.
+    private static int addVonNeumannRadius(int[] xOffsets, int[] yOffsets, int r, int count){
+        int x = -r, y = 0;
+        // Increment x and y, increment x and decrement y, decrement x and y, then decrement x and increment y.
+        for(int i=0; i<r; i++){ count = addOffset(xOffsets, yOffsets, x++, y++, count); }
+        for(int i=0; i<r; i++){ count = addOffset(xOffsets, yOffsets, x++, y--, count); }
+        for(int i=0; i<r; i++){ count = addOffset(xOffsets, yOffsets, x--, y--, count); }
+        for(int i=0; i<r; i++){ count = addOffset(xOffsets, yOffsets, x--, y++, count); }
+        return count;
+    }
+
+    // Add the offsets along the specified Moore radius starting at the upper left corner of the radius.
+    private static int addMooreRadius(int[] xOffsets, int[] yOffsets, int r, int count){
+        int x = -r, y = -r;
+        // Increment x, increment y, decrement x, then decrement y.
+        for(int i=0; i<2*r; i++){ count = addOffset(xOffsets, yOffsets, x++, y, count); }
+        for(int i=0; i<2*r; i++){ count = addOffset(xOffsets, yOffsets, x, y++, count); }
+        for(int i=0; i<2*r; i++){ count = addOffset(xOffsets, yOffsets, x--, y, count); }
+        for(int i=0; i<2*r; i++){ count = addOffset(xOffsets, yOffsets, x, y--, count); }
+        return count;
+    }
+
+    private static int addOffset(int[] xOffsets, int[] yOffsets, int x, int y, int count){
+        xOffsets[count] = x;
+        yOffsets[count] = y;
+        return count+1;
+    }
+
+    // Number of neighbors around every cell.
+    public int size(){ return xOffsets.length; }
+
+    // Check if every neighbor of the cell at (x, y) is found without wrapping around the simulation space.
+    public boolean isInterior(int x, int y){
+        return x >= radius && x < width-radius && y >= radius && y < height-radius;
+    }
+
+    // Get the grid index of the neighbor number k of the cell at (x, y), which is stored at the index.
+    // Interior should be the result of isInterior(x, y).
+    public int getNeighbor(int x, int y, int index, boolean interior, int k){
+        if(interior){ return index+indexOffsets[k]; }
+        return wrappedRow[y+yOffsets[k]+radius]+wrappedX[x+xOffsets[k]+radius];
+    }
+}
@@ -0,0 +1,302 @@
+package epidemic;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+// This class writes the output of a running simulation on a background thread, so output never slows down stepping.
+// The stepping thread publishes the statistics of every time step to a bounded queue. The writer thread takes
+// everything waiting in the queue at once and writes it as one batch to each configured output: the console, a CSV
+// file, a binary file of columns and images of the simulation space. Every output is flushed after each batch, so a
+// long run can be watched while it is going and a crash only loses the last batch.
+// Statistics are never dropped, publishing waits for the writer if the queue is full. Images are downsampled on the
+// stepping thread and dropped instead when the writer falls behind.
+public class OutputPipeline implements AutoCloseable {
+    // Most images waiting to be written at once.
+    private static final int MAX_PENDING_FRAMES = 2;
+    // Most records written in one batch.
+    private static final int MAX_BATCH = 1024;
+    // Palette of the images: susceptible, contagious, removed and dead cells.
+    private static final byte[] RED = {(byte) 235, (byte) 200, (byte) 60, (byte) 20};
+    private static final byte[] GREEN = {(byte) 235, (byte) 30, (byte) 160, (byte) 20};
+    private static final byte[] BLUE = {(byte) 235, (byte) 30, (byte) 70, (byte) 20};
+    private static final int COLUMN_MAGIC = 0x45505354; // "EPST"
+    private static final int COLUMN_VERSION = 1;
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    private Thread writer;
+    private volatile IOException failure;
+    private boolean console;
+    private BufferedWriter csv;
+    private FileChannel columns;
+    private ByteBuffer columnBuffer;
+    private File frameDirectory;
+    private int frameInterval, frameSize;
+    private int droppedFrames;
+    // Set once the first batch of statistics has been written.
+    private boolean started;
+
+    // The statistics of one time step.
+    private static class StepRecord {
+        final long timeStep;
+        final int infections, deaths, removals, newInfections, newDeaths, newRemovals;
+
+        StepRecord(long step, SimulationStatistics statistics){
+            timeStep = step;
+            infections = statistics.getInfections();
+            deaths = statistics.getDeaths();
+            removals = statistics.getRemovals();
+            newInfections = statistics.getNewInfections();
+            newDeaths = statistics.getNewDeaths();
+            newRemovals = statistics.getNewRemovals();
+        }
+    }
+
+    // A downsampled image of the simulation space, one palette index per pixel.
+    private static class FrameRecord {
+        final long timeStep;
+        final int width, height;
+        final byte[] pixels;
+
+        FrameRecord(long step, int w, int h){
+            timeStep = step;
+            width = w;
+            height = h;
+            pixels = new byte[w*h];
+        }
+    }
+
+    // The capacity is the number of records that can wait for the writer before publishing waits.
+    OutputPipeline(int capacity){
+        queue = new ArrayBlockingQueue<>(Math.max(2, capacity));
+    }
+
+    // Print the statistics of every time step. The first record published prints the counts the simulation started
+    // from, every later one the state changes of its day.
+    public void setConsoleOutput(boolean print){ console = print; }
+
+    // Write the statistics to a CSV file. The first row holds the counts the simulation started from and every later
+    // row the state changes of one day, as read by statisticsGraph.py.
+    public void setCsvFile(String fileName) throws IOException {
+        csv = Files.newBufferedWriter(Paths.get(fileName));
+        csv.write("Infections, Deaths, Removed Cells\n");
+    }
+
+    // Write all the statistics of every time step to a binary file of columns. The file starts with a magic number
+    // and version, followed by one block per batch: the number of records in the block, then the time steps as longs,
+    // then the infections, deaths, removals, new infections, new deaths and new removals as ints. Values are little
+    // endian.
+    public void setColumnFile(String fileName) throws IOException {
+        columns = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        columnBuffer = ByteBuffer.allocateDirect(4+MAX_BATCH*(8+6*4)).order(ByteOrder.LITTLE_ENDIAN);
+        columnBuffer.putInt(COLUMN_MAGIC).putInt(COLUMN_VERSION).flip();
+        while(columnBuffer.hasRemaining()){ columns.write(columnBuffer); }
+    }
+
+    // Write a PNG image of the simulation space to the directory every interval time steps. Images are downsampled
+    // so neither side is longer than the frame size, every pixel showing one cell of the block it covers.
+    public void setFrameOutput(String directory, int interval, int size) throws IOException {
+        frameDirectory = new File(directory);
+        Files.createDirectories(frameDirectory.toPath());
+        frameInterval = Math.max(1, interval);
+        frameSize = Math.max(1, size);
+    }
+
+    // Publish the current time step of the simulation. Waits if the writer is too far behind.
+    // The outputs must be configured before the first time step is published.
+    public void publish(Simulation simulation) throws IOException {
+        publish(simulation.getTimeStep(), simulation.getStatistics());
+        if(frameDirectory != null && simulation.getTimeStep()%frameInterval == 0){ publishFrame(simulation); }
+    }
+
+    // Publish the statistics of a time step of a simulation stepped somewhere else. No image is written.
+    public void publish(long timeStep, SimulationStatistics statistics) throws IOException {
+        if(failure != null){ throw failure; }
+        if(writer == null){
+            writer = new Thread(this::write, "Simulation output");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        try{
+            if(!enqueue(new StepRecord(timeStep, statistics))){
+                throw (failure != null) ? failure:new IOException("The output writer stopped.");
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while publishing time step "+timeStep+".");
+        }
+    }
+
+    // Number of images dropped because the writer was behind.
+    public int getDroppedFrames(){ return droppedFrames; }
+
+    // Downsample the current grid and hand it to the writer, unless the writer already has enough images waiting.
+    private void publishFrame(Simulation simulation){
+        if(pendingFrames.get() >= MAX_PENDING_FRAMES){
+            droppedFrames++;
+            return;
+        }
+        CellGrid cells = simulation.getCells();
+        int scale = (Math.max(cells.width, cells.height)+frameSize-1)/frameSize;
+        FrameRecord frame = new FrameRecord(simulation.getTimeStep(),
+                (cells.width+scale-1)/scale, (cells.height+scale-1)/scale);
+        for(int py=0; py<frame.height; py++){
+            for(int px=0; px<frame.width; px++){
+                int index = cells.getIndex(px*scale, py*scale);
+                byte color = 0;
+                if(cells.isDead(index)){ color = 3; }
+                else if(cells.isRemoved(index)){ color = 2; }
+                else if(cells.isContagious(index)){ color = 1; }
+                frame.pixels[py*frame.width+px] = color;
+            }
+        }
+        pendingFrames.incrementAndGet();
+        if(!queue.offer(frame)){
+            pendingFrames.decrementAndGet();
+            droppedFrames++;
+        }
+    }
+
+    // Write everything still waiting in the queue, then close every output.
+    @Override
+    public void close() throws IOException {
+        if(writer != null){
+            try{
+                enqueue(END);
+                writer.join();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while finishing the output.");
+            }
+        }
+        try{
+            if(csv != null){ csv.close(); }
+            if(columns != null){ columns.close(); }
+        }catch(IOException e){
+            if(failure == null){ failure = e; }
+        }
+        if(failure != null){ throw failure; }
+    }
+
+    // Put the record in the queue, waiting while it is full. Returns false without waiting any longer once the writer
+    // has stopped, since nothing takes records from the queue anymore.
+    private boolean enqueue(Object record) throws InterruptedException {
+        while(!queue.offer(record, 100, TimeUnit.MILLISECONDS)){
+            if(!writer.isAlive()){ return false; }
+        }
+        return true;
+    }
+
+    // Take batches from the queue until the end of the output. After an output fails the queue is still emptied, so
+    // the stepping thread never waits forever, and the failure is reported to it.
+    private void write(){
+        ArrayList<Object> batch = new ArrayList<>();
+        boolean done = false;
+        while(!done){
+            try{
+                batch.add(queue.take());
+            }catch(InterruptedException e){
+                failure = new InterruptedIOException("Output writer interrupted.");
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH-1);
+            done = (batch.get(batch.size()-1) == END);
+            if(failure == null){
+                try{
+                    writeBatch(batch);
+                }catch(IOException e){
+                    failure = e;
+                }
+            }
+            for(Object record : batch){
+                if(record instanceof FrameRecord){ pendingFrames.decrementAndGet(); }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(ArrayList<Object> batch) throws IOException {
+        ArrayList<StepRecord> steps = new ArrayList<>(batch.size());
+        for(Object record : batch){
+            if(record instanceof StepRecord){ steps.add((StepRecord) record); }
+            else if(record instanceof FrameRecord){ writeFrame((FrameRecord) record); }
+        }
+        if(steps.isEmpty()){ return; }
+        if(console){ printSteps(steps); }
+        if(csv != null){ writeCsv(steps); }
+        if(columns != null){ writeColumns(steps); }
+        started = true;
+    }
+
+    // The first record published is the starting point of the simulation.
+    private boolean isStart(int i){ return !started && i == 0; }
+
+    private void printSteps(ArrayList<StepRecord> steps){
+        StringBuilder builder = new StringBuilder();
+        for(int i=0; i<steps.size(); i++){
+            StepRecord step = steps.get(i);
+            if(isStart(i)){
+                builder.append("Infections: ").append(step.infections).append('\n');
+                builder.append("Deaths: ").append(step.deaths).append('\n');
+                builder.append("Immunities: ").append(step.removals).append('\n');
+                builder.append("*".repeat(89)).append('\n');
+            } else {
+                builder.append("Time step: Day #").append(step.timeStep).append('\n');
+                builder.append("Infections: ").append(step.newInfections).append('\n');
+                builder.append("Deaths: ").append(step.newDeaths).append('\n');
+                builder.append("Removed Cells: ").append(step.newRemovals).append('\n');
+            }
+            builder.append('\n');
+        }
+        System.out.print(builder);
+        System.out.flush();
+    }
+
+    private void writeCsv(ArrayList<StepRecord> steps) throws IOException {
+        for(int i=0; i<steps.size(); i++){
+            StepRecord step = steps.get(i);
+            if(isStart(i)){ csv.write(step.infections+", "+step.deaths+", "+step.removals+"\n"); }
+            else{ csv.write(step.newInfections+", "+step.newDeaths+", "+step.newRemovals+"\n"); }
+        }
+        csv.flush();
+    }
+
+    private void writeColumns(ArrayList<StepRecord> steps) throws IOException {
+        columnBuffer.clear();
+        columnBuffer.putInt(steps.size());
+        for(StepRecord step : steps){ columnBuffer.putLong(step.timeStep); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.infections); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.deaths); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.removals); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.newInfections); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.newDeaths); }
+        for(StepRecord step : steps){ columnBuffer.putInt(step.newRemovals); }
+        columnBuffer.flip();
+        while(columnBuffer.hasRemaining()){ columns.write(columnBuffer); }
+    }
+
+    private void writeFrame(FrameRecord frame) throws IOException {
+        IndexColorModel palette = new IndexColorModel(2, RED.length, RED, GREEN, BLUE);
+        BufferedImage image = new BufferedImage(frame.width, frame.height, BufferedImage.TYPE_BYTE_BINARY, palette);
+        image.getRaster().setDataElements(0, 0, frame.width, frame.height, frame.pixels);
+        ImageIO.write(image, "png", new File(frameDirectory, String.format("frame-%06d.png", frame.timeStep)));
+    }
+}
@@ -0,0 +1,20 @@
+package epidemic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight recorder event covering one phase of the calculation of a time step.
+@Name("epidemic.Phase")
+@Label("Simulation Step Phase")
+@Category("Epidemic Simulation")
+@Description("One phase of the calculation of the next time step of a simulation")
+class PhaseEvent extends Event {
+    @Label("Time Step")
+    long timeStep;
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,44 @@
+package epidemic;
+
+import java.util.concurrent.RecursiveAction;
+
+// This class populates a range of rows of tiles of a simulation on a fork join pool and counts their cells.
+// The range is split in half until each part is small enough, so the threads share the rows however many there are.
+// Each part creates its own random stream and counts, which only takes a few allocations per chunk of rows.
+class PopulateTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // Rows of tiles of at most this many cells are populated without splitting them further.
+    private static final int CHUNK_CELLS = 64*1024;
+
+    private final Simulation simulation;
+    private final int rowStart, rowEnd;
+    private final double initialInfectionPercentage;
+    private final ResistanceDistribution resistance;
+    // Cells of the rows in each state once the task is done.
+    final SimulationStatistics counts = new SimulationStatistics();
+
+    // The rows of tiles from the start up to but not including the end.
+    PopulateTask(Simulation sim, int start, int end, double initialInfection, ResistanceDistribution distribution){
+        simulation = sim;
+        rowStart = start;
+        rowEnd = end;
+        initialInfectionPercentage = initialInfection;
+        resistance = distribution;
+    }
+
+    @Override
+    protected void compute(){
+        long cells = (long) (rowEnd-rowStart)*FrontierMap.TILE_SIZE*simulation.getWidth();
+        if(rowEnd-rowStart < 2 || cells <= CHUNK_CELLS){
+            simulation.populateTileRows(rowStart, rowEnd, initialInfectionPercentage, resistance, counts);
+            return;
+        }
+        int middle = (rowStart+rowEnd) >>> 1;
+        PopulateTask first = new PopulateTask(simulation, rowStart, middle, initialInfectionPercentage, resistance);
+        PopulateTask second = new PopulateTask(simulation, middle, rowEnd, initialInfectionPercentage, resistance);
+        invokeAll(first, second);
+        counts.addCounts(first.counts);
+        counts.addCounts(second.counts);
+    }
+}
@@ -0,0 +1,60 @@
+package epidemic;
+
+// This class advances the infected cells of a run of consecutive cells by one day, one cell at a time.
+// Every infected cell that is not removed or dead yet draws once from its stream to see if it is removed and dies once
+// it has been infected for the days to death. Every other cell of the run is carried over to the next grid unchanged,
+// to be evaluated for an infection afterwards.
+// When the JDK Vector API is available a kernel that advances many cells at once is used instead. It is in its own
+// class, so the simulation still runs on a JVM started without the incubating jdk.incubator.vector module. Both
+// kernels produce exactly the same results. Starting the JVM with -Depidemic.vector=false always uses this kernel.
+class ProgressionKernel {
+    private static final boolean VECTOR_ENABLED = !"false".equals(System.getProperty("epidemic.vector"));
+    private static final String VECTOR_KERNEL = "epidemic.VectorProgressionKernel";
+
+    final double removalDecay;
+    final int daysToDeath;
+
+    ProgressionKernel(double removalDecayRate, int deathTime){
+        removalDecay = removalDecayRate;
+        daysToDeath = deathTime;
+    }
+
+    // The fastest kernel this JVM can run.
+    static ProgressionKernel create(double removalDecayRate, int deathTime){
+        return create(removalDecayRate, deathTime, VECTOR_ENABLED);
+    }
+
+    // The vector kernel if it is wanted and the Vector API is available, otherwise this kernel.
+    static ProgressionKernel create(double removalDecayRate, int deathTime, boolean vector){
+        if(vector){
+            try{
+                return (ProgressionKernel) Class.forName(VECTOR_KERNEL)
+                        .getDeclaredConstructor(double.class, int.class).newInstance(removalDecayRate, deathTime);
+            }catch(ReflectiveOperationException | LinkageError e){
+                // The module is missing or the machine has no usable vector shape, so cells go one at a time.
+            }
+        }
+        return new ProgressionKernel(removalDecayRate, deathTime);
+    }
+
+    // Check if this kernel advances many cells at once.
+    boolean isVectorized(){ return false; }
+
+    // Write the next state of the cells from the start index up to but not including the end index, advancing the
+    // infected cells with draws from the streams of the time step being calculated.
+    void progress(CellGrid current, CellGrid next, int start, int end, RandomStream rand, long timeStep){
+        next.copyStates(current, start, end);
+        progressCells(current, next, start, end, rand, timeStep);
+    }
+
+    // Advance the infected cells of the run one at a time, which have already been copied to the next grid.
+    final void progressCells(CellGrid current, CellGrid next, int start, int end, RandomStream rand, long timeStep){
+        for(int index=start; index<end; index++){
+            byte cell = current.state[index];
+            if((cell & CellGrid.FLAGS) == CellGrid.CONTAGIOUS){
+                CellularAutomaton.progressInfection(current, next, index, cell, rand, timeStep, removalDecay,
+                        daysToDeath);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package epidemic;
+
+// This interface is a source of random numbers for the simulation.
+// A stream is positioned at the draws belonging to one cell during one time step, so the numbers a cell draws only
+// depend on the master seed, the time step and the cell index and never on the order the cells are evaluated in.
+public interface RandomStream {
+    // Position the stream at the first draw of the cell at the index during the time step.
+    void setPosition(long timeStep, int index);
+
+    // Next uniformly distributed value between 0 inclusive and 1 exclusive.
+    double nextDouble();
+
+    // Next normally distributed value with a mean of 0 and a standard deviation of 1.
+    double nextGaussian();
+}
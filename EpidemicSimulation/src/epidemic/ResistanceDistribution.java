@@ -0,0 +1,81 @@
+package epidemic;
+
+// This interface is a strategy for the resistance of the population given to every cell when populating.
+// The resistance of a cell is drawn from the stream positioned at that cell, right after its infection roll, so every
+// cell of a populated simulation only depends on the master seed and its index. Cells are populated in parallel and
+// in any order, so a distribution must not keep any state between cells.
+public interface ResistanceDistribution {
+    // Choose the resistance table of the grid, which every resistance drawn is stored as the closest value of.
+    void useTable(CellGrid grid);
+
+    // Resistance of the next cell, between 0 and 1.
+    double nextResistance(RandomStream rand);
+
+    // The same resistance for the entire population. No random numbers are drawn.
+    static ResistanceDistribution constant(double resistance){ return new ConstantResistance(resistance); }
+
+    // Resistance uniformly distributed across the entire population.
+    static ResistanceDistribution uniform(){ return UniformResistance.INSTANCE; }
+
+    // Gaussian distribution with standard deviation skewed towards target resistance for the entire population.
+    // Values are clamped between 0 and 1. Depending on the standard deviation and target resistance picked, there may
+    // be many completely resistant or unresistant cellular automatons. Rerolling draws such resistance values again,
+    // but this will cause a higher chance of automatons having a resistance close to the target even if the standard
+    // deviation is wide. Rerolling needs a target between 0 and 1 exclusive and a positive standard deviation, or it
+    // might never find another value.
+    static ResistanceDistribution skewedGaussian(double targetResistance, double standardDeviation, boolean reroll){
+        return new SkewedGaussianResistance(targetResistance, standardDeviation, reroll);
+    }
+}
+
+class ConstantResistance implements ResistanceDistribution {
+    private final double resistance;
+
+    ConstantResistance(double populationResistance){ resistance = populationResistance; }
+
+    @Override
+    public void useTable(CellGrid grid){ grid.useConstantResistance(resistance); }
+
+    @Override
+    public double nextResistance(RandomStream rand){ return resistance; }
+}
+
+class UniformResistance implements ResistanceDistribution {
+    static final UniformResistance INSTANCE = new UniformResistance();
+
+    @Override
+    public void useTable(CellGrid grid){ grid.useQuantizedResistance(); }
+
+    @Override
+    public double nextResistance(RandomStream rand){ return rand.nextDouble(); }
+}
+
+class SkewedGaussianResistance implements ResistanceDistribution {
+    private final double target, standardDeviation;
+    private final boolean reroll;
+
+    SkewedGaussianResistance(double targetResistance, double deviation, boolean rerollExtremes){
+        if(rerollExtremes && !(targetResistance > 0 && targetResistance < 1 && deviation > 0)){
+            throw new IllegalArgumentException("Rerolling needs a target resistance between 0 and 1 exclusive and a "
+                    +"positive standard deviation.");
+        }
+        target = targetResistance;
+        standardDeviation = deviation;
+        reroll = rerollExtremes;
+    }
+
+    @Override
+    public void useTable(CellGrid grid){ grid.useQuantizedResistance(); }
+
+    @Override
+    public double nextResistance(RandomStream rand){
+        double resistance = roll(rand);
+        while(reroll && (resistance == 0 || resistance == 1)){ resistance = roll(rand); }
+        return resistance;
+    }
+
+    // Returns a random number from a Gaussian distribution skewed at the target with the standard deviation.
+    private double roll(RandomStream rand){
+        return Math.max(0.0, Math.min(1.0, target+rand.nextGaussian()*standardDeviation));
+    }
+}
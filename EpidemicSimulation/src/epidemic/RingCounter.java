@@ -0,0 +1,179 @@
+package epidemic;
+
+import java.util.concurrent.ForkJoinPool;
+
+// This class counts the contagious cells on every radius around a cell with a few table lookups per radius.
+// The tables are prefix sums over the simulation space padded by the radius on every side, with the padding wrapped
+// around from the opposite edge, so no lookup ever has to wrap.
+// Moore radii are the difference of two squares of a summed area table. Von Neumann radii are made of four diagonal
+// line segments, which are differences of prefix sums along the two diagonal directions.
+class RingCounter {
+    // Fewest padded rows in a band and table columns in a strip when the tables are built in parallel.
+    private static final int MIN_BAND_ROWS = 16, MIN_STRIP_COLUMNS = 256;
+
+    final int radius, width, height;
+    private final Neighborhood model;
+    // Padded width and height plus one, the size of a prefix sum table row and column.
+    private final int tableWidth, tableHeight;
+    // Summed area table for Moore neighborhoods, or the diagonal and anti-diagonal prefix sums for Von Neumann
+    // neighborhoods.
+    private final int[] first, second;
+    private final int[] wrappedX;
+
+    RingCounter(NeighborhoodStencil stencil){
+        model = stencil.model;
+        radius = stencil.radius;
+        width = stencil.width;
+        height = stencil.height;
+        tableWidth = width+2*radius+1;
+        tableHeight = height+2*radius+1;
+        first = new int[tableWidth*tableHeight];
+        second = (model == Neighborhood.VonNeumann) ? new int[tableWidth*tableHeight]:null;
+        wrappedX = new int[width+2*radius];
+        for(int x=0; x<wrappedX.length; x++){ wrappedX[x] = Math.floorMod(x-radius, width); }
+    }
+
+    // Estimated bytes taken up by the tables of a ring counter for the stencil of the given size and radius, about
+    // four bytes per cell for Moore neighborhoods and eight for Von Neumann neighborhoods.
+    static long estimateBytes(Neighborhood model, int radius, int w, int h){
+        long table = 4L*(w+2*radius+1)*(h+2*radius+1);
+        return ((model == Neighborhood.VonNeumann) ? 2*table:table)+4L*(w+2*radius);
+    }
+
+    // Rebuild the tables from the contagious cells of the grid on the calling thread.
+    void update(CellGrid grid){
+        int rows = height+2*radius;
+        if(model == Neighborhood.Moore){
+            // Both directions at once, which only reads the table once.
+            for(int py=0; py<rows; py++){
+                int row = Math.floorMod(py-radius, height)*width;
+                for(int px=0; px<width+2*radius; px++){
+                    int contagious = grid.isContagious(row+wrappedX[px]) ? 1:0;
+                    // Cells left of and above (px+1, py+1).
+                    first[(py+1)*tableWidth+px+1] = contagious+first[(py+1)*tableWidth+px]
+                            +first[py*tableWidth+px+1]-first[py*tableWidth+px];
+                }
+            }
+        } else {
+            sumDiagonals(grid, 0, rows);
+            sumAntiDiagonals(grid, 0, rows);
+        }
+    }
+
+    // Rebuild the tables from the contagious cells of the grid in parallel on the pool.
+    // The padded rows are split into bands that are summed on their own. Moore tables then sum the columns in strips.
+    // Diagonal sums instead carry the last row of every band into the first row of the next band, one band after
+    // another, after which the other rows of every band take their carry from the row before the band in parallel.
+    void update(CellGrid grid, ForkJoinPool pool){
+        int rows = height+2*radius;
+        int bandCount = Math.max(1, Math.min(rows/MIN_BAND_ROWS, pool.getParallelism()*4));
+        int[] bands = new int[bandCount+1];
+        for(int i=0; i<=bandCount; i++){ bands[i] = i*rows/bandCount; }
+        if(model == Neighborhood.Moore){
+            pool.invoke(new RingCounterTask(this, grid, RingCounterTask.ROWS, bands, 0, bandCount));
+            int stripCount = Math.max(1, Math.min((tableWidth-1)/MIN_STRIP_COLUMNS, pool.getParallelism()*4));
+            int[] strips = new int[stripCount+1];
+            for(int i=0; i<=stripCount; i++){ strips[i] = 1+i*(tableWidth-1)/stripCount; }
+            pool.invoke(new RingCounterTask(this, grid, RingCounterTask.COLUMNS, strips, 0, stripCount));
+            return;
+        }
+        pool.invoke(new RingCounterTask(this, grid, RingCounterTask.DIAGONALS, bands, 0, bandCount));
+        for(int i=1; i<bandCount; i++){ carryDiagonals(bands[i], bands[i+1]-1, bands[i+1]); }
+        for(int i=bandCount-2; i>=0; i--){ carryAntiDiagonals(bands[i+1], bands[i], bands[i]+1); }
+        pool.invoke(new RingCounterTask(this, grid, RingCounterTask.CARRIES, bands, 0, bandCount));
+    }
+
+    // Sum the contagious cells of every padded row from the start up to but not including the end along the row.
+    void sumRows(CellGrid grid, int start, int end){
+        for(int py=start; py<end; py++){
+            int row = Math.floorMod(py-radius, height)*width;
+            int sum = 0;
+            for(int px=0; px<width+2*radius; px++){
+                if(grid.isContagious(row+wrappedX[px])){ sum++; }
+                first[(py+1)*tableWidth+px+1] = sum;
+            }
+        }
+    }
+
+    // Add up the row sums down every table column from the start up to but not including the end, which turns them
+    // into the cells left of and above every entry.
+    void sumColumns(int start, int end){
+        for(int ty=2; ty<tableHeight; ty++){
+            for(int tx=start; tx<end; tx++){ first[ty*tableWidth+tx] += first[(ty-1)*tableWidth+tx]; }
+        }
+    }
+
+    // Sum the contagious cells of the padded rows from the start up to but not including the end along the
+    // diagonals, up and to the left of (px+1, py+1), counting from the start row.
+    void sumDiagonals(CellGrid grid, int start, int end){
+        for(int py=start; py<end; py++){
+            int row = Math.floorMod(py-radius, height)*width;
+            for(int px=0; px<width+2*radius; px++){
+                int above = (py == start) ? 0:first[py*tableWidth+px];
+                first[(py+1)*tableWidth+px+1] = (grid.isContagious(row+wrappedX[px]) ? 1:0)+above;
+            }
+        }
+    }
+
+    // Sum the contagious cells of the padded rows from the start up to but not including the end along the
+    // anti-diagonals, down and to the left of (px+1, py-1) and stored one row down, counting from the end row.
+    void sumAntiDiagonals(CellGrid grid, int start, int end){
+        for(int py=end-1; py>=start; py--){
+            int row = Math.floorMod(py-radius, height)*width;
+            for(int px=0; px<width+2*radius; px++){
+                int below = (py == end-1) ? 0:second[(py+1)*tableWidth+px];
+                second[py*tableWidth+px+1] = (grid.isContagious(row+wrappedX[px]) ? 1:0)+below;
+            }
+        }
+    }
+
+    // Add the diagonal sums of the padded row before the band starting at the start row to the padded rows from the
+    // first up to but not including the last, which were summed from the start of the band.
+    void carryDiagonals(int start, int firstRow, int lastRow){
+        for(int py=firstRow; py<lastRow; py++){
+            int shift = py+1-start;
+            for(int tx=shift+1; tx<tableWidth; tx++){ first[(py+1)*tableWidth+tx] += first[start*tableWidth+tx-shift]; }
+        }
+    }
+
+    // Add the anti-diagonal sums of the padded row after the band ending at the end row to the padded rows from the
+    // first up to but not including the last, which were summed from the end of the band.
+    void carryAntiDiagonals(int end, int firstRow, int lastRow){
+        for(int py=firstRow; py<lastRow; py++){
+            int shift = end-py;
+            for(int tx=shift+1; tx<tableWidth; tx++){ second[py*tableWidth+tx] += second[end*tableWidth+tx-shift]; }
+        }
+    }
+
+    // Write the number of contagious cells on every radius around the cell at (x, y) to the counts, starting at
+    // radius 1.
+    void countRings(int x, int y, int[] counts){
+        int px = x+radius, py = y+radius;
+        if(model == Neighborhood.Moore){
+            // The square of radius 0 is the cell itself.
+            int inner = 0;
+            for(int r=0; r<=radius; r++){
+                int square = first[(py+r+1)*tableWidth+px+r+1]-first[(py+r+1)*tableWidth+px-r]
+                        -first[(py-r)*tableWidth+px+r+1]+first[(py-r)*tableWidth+px-r];
+                if(r > 0){ counts[r] = square-inner; }
+                inner = square;
+            }
+        } else {
+            for(int r=1; r<=radius; r++){
+                // Walk the radius from the left corner to the bottom, right and top corners and back.
+                counts[r] = diagonal(px-r, py, r)+antiDiagonal(px, py+r, r)
+                        +diagonal(px+1, py-r+1, r)+antiDiagonal(px-r+1, py-1, r);
+            }
+        }
+    }
+
+    // Contagious cells from (px, py) going right and down for the length.
+    private int diagonal(int px, int py, int length){
+        return first[(py+length)*tableWidth+px+length]-first[py*tableWidth+px];
+    }
+
+    // Contagious cells from (px, py) going right and up for the length.
+    private int antiDiagonal(int px, int py, int length){
+        return second[(py-length+1)*tableWidth+px+length]-second[(py+1)*tableWidth+px];
+    }
+}
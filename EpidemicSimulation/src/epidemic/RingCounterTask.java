@@ -0,0 +1,53 @@
+package epidemic;
+
+import java.util.concurrent.RecursiveAction;
+
+// This class runs one phase of building the tables of a ring counter on a fork join pool.
+// The phase is run on a range of parts, bands of padded rows or strips of table columns, which is split in half until
+// each part runs on its own. The parts have to stay the same through every phase of a build.
+class RingCounterTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // Phases of building the tables, see RingCounter.update.
+    static final int ROWS = 0, COLUMNS = 1, DIAGONALS = 2, CARRIES = 3;
+
+    private final RingCounter counter;
+    private final CellGrid grid;
+    private final int phase;
+    // Bounds of every part, part i runs from bounds[i] up to but not including bounds[i+1].
+    private final int[] bounds;
+    private final int first, last;
+
+    // The parts from the first up to but not including the last.
+    RingCounterTask(RingCounter ringCounter, CellGrid contagious, int tablePhase, int[] partBounds, int start, int end){
+        counter = ringCounter;
+        grid = contagious;
+        phase = tablePhase;
+        bounds = partBounds;
+        first = start;
+        last = end;
+    }
+
+    @Override
+    protected void compute(){
+        if(last-first > 1){
+            int middle = (first+last) >>> 1;
+            invokeAll(new RingCounterTask(counter, grid, phase, bounds, first, middle),
+                    new RingCounterTask(counter, grid, phase, bounds, middle, last));
+            return;
+        }
+        int start = bounds[first], end = bounds[first+1];
+        int parts = bounds.length-1;
+        if(phase == ROWS){ counter.sumRows(grid, start, end); }
+        else if(phase == COLUMNS){ counter.sumColumns(start, end); }
+        else if(phase == DIAGONALS){
+            counter.sumDiagonals(grid, start, end);
+            counter.sumAntiDiagonals(grid, start, end);
+        } else {
+            // The last row of every band but the first took its diagonal carry already, and so did the first row of
+            // every band but the last for the anti-diagonals.
+            if(first > 0){ counter.carryDiagonals(start, start, end-1); }
+            if(first < parts-1){ counter.carryAntiDiagonals(end, start+1, end); }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package epidemic;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// This class carries the messages of a distributed simulation through memory mapped files, for running every endpoint
+// on one machine without going through the network stack.
+// Every direction between two endpoints has its own file in the directory holding one message at a time. The file
+// starts with the number of messages written and the number of messages read, followed by the length of the message
+// and the message itself. The sender waits until the last message has been read before writing the next one, and the
+// receiver waits until a message has been written.
+// The file also holds the process of the sender and of the receiver, so a waiting endpoint notices when the other end
+// has closed the file or its process has died, however long a time step takes. The processes are left out of the
+// message counts and can be checked at any time.
+// The directory has to be empty when the simulation starts, since old files would hold the counts of an earlier run.
+public class SharedFileHaloTransport implements HaloTransport {
+    private static final int WRITTEN = 0, READ = 8, LENGTH = 16, SENDER = 24, RECEIVER = 32, MESSAGE = 64;
+    // Process of an end that has not opened the file yet, and of an end that has closed it.
+    private static final long NOT_OPENED = 0, CLOSED = -1;
+    // Milliseconds to wait for an endpoint that has not opened its files yet.
+    private static final long START_TIMEOUT = 60000;
+    // Milliseconds between checks whether the process of the other end is still alive.
+    private static final long CHECK_INTERVAL = 100;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int capacity;
+    private final MappedByteBuffer[] outgoing, incoming;
+    private final int[] peerList;
+
+    // Parameters:
+    // directory = directory shared by all endpoints
+    // self = number of this endpoint
+    // peers = numbers of the endpoints this endpoint talks to, which may include itself
+    // endpoints = number of endpoints
+    // maxMessage = length of the longest message sent
+    SharedFileHaloTransport(Path directory, int self, int[] peers, int endpoints, int maxMessage) throws IOException {
+        capacity = maxMessage;
+        outgoing = new MappedByteBuffer[endpoints];
+        incoming = new MappedByteBuffer[endpoints];
+        peerList = peers.clone();
+        long process = ProcessHandle.current().pid();
+        for(int peer : peers){
+            outgoing[peer] = map(directory.resolve(self+"-"+peer+".halo"));
+            incoming[peer] = (peer == self) ? outgoing[peer]:map(directory.resolve(peer+"-"+self+".halo"));
+            LONGS.setVolatile(outgoing[peer], SENDER, process);
+            LONGS.setVolatile(incoming[peer], RECEIVER, process);
+        }
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)){
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, MESSAGE+capacity);
+        }
+    }
+
+    @Override
+    public void send(int peer, byte[] message, int length) throws IOException {
+        if(length > capacity){ throw new IOException("Message of "+length+" bytes is too long."); }
+        MappedByteBuffer buffer = outgoing[peer];
+        long written = (long) LONGS.getVolatile(buffer, WRITTEN);
+        await(buffer, READ, written, RECEIVER, peer);
+        buffer.put(MESSAGE, message, 0, length);
+        buffer.putInt(LENGTH, length);
+        LONGS.setVolatile(buffer, WRITTEN, written+1);
+    }
+
+    @Override
+    public void receive(int peer, byte[] message, int length) throws IOException {
+        MappedByteBuffer buffer = incoming[peer];
+        long read = (long) LONGS.getVolatile(buffer, READ);
+        await(buffer, WRITTEN, read+1, SENDER, peer);
+        int received = buffer.getInt(LENGTH);
+        if(received != length){
+            throw new IOException("Expected "+length+" bytes from endpoint "+peer+" but got "+received+".");
+        }
+        buffer.get(MESSAGE, message, 0, length);
+        LONGS.setVolatile(buffer, READ, read+1);
+    }
+
+    // Wait until the count at the offset of the buffer reaches the value. Spins briefly first, since the other
+    // endpoint is usually just about to get there, then backs off. Gives up once the other end, whose process is held
+    // at the end offset, has closed the file or died without getting there, or has not opened it in time.
+    private static void await(MappedByteBuffer buffer, int offset, long value, int end, int peer) throws IOException {
+        long started = 0, nextCheck = 0;
+        for(int spins=0; (long) LONGS.getVolatile(buffer, offset) < value; spins++){
+            if(spins < 1000){
+                Thread.onSpinWait();
+                continue;
+            }
+            if(Thread.interrupted()){
+                throw new InterruptedIOException("Interrupted while waiting for endpoint "+peer+".");
+            }
+            long process = (long) LONGS.getVolatile(buffer, end);
+            long now = System.currentTimeMillis();
+            if(started == 0){ started = now; }
+            if(process == CLOSED || (process != NOT_OPENED && now >= nextCheck && !isAlive(process))){
+                // The other end may have got there just before it stopped.
+                if((long) LONGS.getVolatile(buffer, offset) >= value){ return; }
+                throw new IOException("Endpoint "+peer+" stopped.");
+            }
+            if(process == NOT_OPENED && now-started > START_TIMEOUT){
+                throw new IOException("Endpoint "+peer+" never opened its files.");
+            }
+            if(now >= nextCheck){ nextCheck = now+CHECK_INTERVAL; }
+            LockSupport.parkNanos(50000);
+        }
+    }
+
+    private static boolean isAlive(long process){
+        return ProcessHandle.of(process).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    // Mark this end of every file closed, so endpoints still waiting on this one stop waiting. The files are left for
+    // the operating system to unmap.
+    @Override
+    public void close(){
+        for(int peer : peerList){
+            LONGS.setVolatile(outgoing[peer], SENDER, CLOSED);
+            LONGS.setVolatile(incoming[peer], RECEIVER, CLOSED);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package epidemic;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+public class Simulation {
+    // Simulation spaces with fewer cells than this are always stepped on the calling thread.
+    private static final int PARALLEL_CELL_THRESHOLD = 128*128;
+
+    private CellGrid cells, nextTimeStep;
+    private int height, width, contagiousRadius, daysToDeath;
+    private Neighborhood model;
+    private NeighborhoodStencil stencil;
+    private ForkJoinPool pool;
+    private int threadCount = 1;
+    private boolean ownsPool;
+    private long seed, timeStep;
+    private LongFunction<RandomStream> randomStreams = SplitMixStream::new;
+    private FrontierMap frontier;
+    private boolean sparseStepping;
+    private InfectionTable infection;
+    private InfectionEvaluation evaluation = InfectionEvaluation.PerNeighbor;
+    private RingCounter ringCounter;
+    // Infections the ring counts were built for, or -1 if they have to be built again. Cells never stop being
+    // contagious, so the contagious cells are still the same as long as the number of infections is.
+    private int ringCountedInfections = -1;
+    // Steps the simulation by events instead of evaluating the simulation space, or null.
+    private EventEngine events;
+    // Bands of tiles reused every time step, created again whenever the threads or random streams change.
+    private StepTask sequentialStep, parallelStep;
+    private ArrayList<StepTask> parallelBands;
+    // Counts of the current time step, and of the time step being calculated.
+    private final SimulationStatistics statistics = new SimulationStatistics();
+    private final SimulationStatistics nextStatistics = new SimulationStatistics();
+    private final SimulationMetrics metrics = new SimulationMetrics();
+    double infectionChance, contagionDecayRate, removalDecayRate;
+
+    // Parameters:
+    // w = width of simulation space
+    // h = height of simulation space
+    // r = radius of effect of infection
+    // deathTime = max # of days a person can go without gaining immunity before a death
+    // neighborhood = neighborhood model selection
+    // infectionProbability = the probability of any one cellular automaton to cause an infection on any other automaton
+    // contagionDecay = the decay rate of how effective the infection is on the radii of the neighborhood model
+    // removalDecay = the decay rate of a cellular automaton's chance of becoming removed over each time step
+    // The master seed for every random draw of the simulation is picked at random.
+    Simulation(int w, int h, int r, int deathTime, Neighborhood neighborhood,
+               double infectionProbability, double contagionDecay, double removalDecay){
+        this(w, h, r, deathTime, neighborhood, infectionProbability, contagionDecay, removalDecay,
+                new SplittableRandom().nextLong());
+    }
+
+    // Same parameters as above with the master seed every random draw of the simulation is derived from.
+    // Two simulations with the same parameters and seed produce the same results.
+    Simulation(int w, int h, int r, int deathTime, Neighborhood neighborhood,
+               double infectionProbability, double contagionDecay, double removalDecay, long masterSeed){
+        // Days infected are packed into five bits of each cell, so death has to come before they run out.
+        if(deathTime > CellGrid.MAX_DAYS_INFECTED){
+            throw new IllegalArgumentException("Death time can be at most "+CellGrid.MAX_DAYS_INFECTED+" days.");
+        }
+        height = h;
+        width = w;
+        contagiousRadius = r;
+        cells = new CellGrid(w, h);
+        nextTimeStep = new CellGrid(cells);
+        CellGrid.pair(cells, nextTimeStep);
+        model = neighborhood;
+        stencil = NeighborhoodStencil.create(neighborhood, r, w, h);
+        frontier = new FrontierMap(w, h, stencil.radius);
+        daysToDeath = deathTime;
+        infectionChance = infectionProbability;
+        contagionDecayRate = contagionDecay;
+        removalDecayRate = removalDecay;
+        infection = new InfectionTable(stencil.radius, infectionProbability, contagionDecay);
+        seed = masterSeed;
+    }
+
+    // Estimated bytes taken up by a simulation with the given size, radius and way of stepping: the two grids, the
+    // frontier map, the tables counting contagious neighbors when rolling once for all of them, and the event queue
+    // when stepping event driven.
+    static long estimateBytes(int w, int h, int r, Neighborhood neighborhood, InfectionEvaluation evaluation,
+                              boolean eventDriven){
+        long bytes = CellGrid.estimateBytes(w, h)+FrontierMap.estimateBytes(w, h);
+        if(evaluation == InfectionEvaluation.RingAggregated){
+            bytes += RingCounter.estimateBytes(neighborhood, NeighborhoodStencil.limitRadius(r, w, h), w, h);
+        }
+        if(eventDriven){ bytes += EventEngine.estimateBytes(w, h); }
+        return bytes;
+    }
+
+    public long getSeed(){ return seed; }
+    public int getWidth(){ return width; }
+    public int getHeight(){ return height; }
+    public int getRadius(){ return contagiousRadius; }
+    public int getDaysToDeath(){ return daysToDeath; }
+    Neighborhood getNeighborhood(){ return model; }
+    InfectionEvaluation getInfectionEvaluation(){ return evaluation; }
+
+    // Number of time steps the simulation has been updated by since it was populated.
+    public long getTimeStep(){ return timeStep; }
+
+    // Replace the random stream implementation. The function creates a stream from the master seed.
+    public void setRandomStreams(LongFunction<RandomStream> streams){
+        randomStreams = streams;
+        sequentialStep = parallelStep = null;
+        if(events != null){ restartEvents(); }
+    }
+
+    // Constant resistance chance for entire population
+    public void populateCells(double initialInfectionPercentage, double populationResistance){
+        populateCells(initialInfectionPercentage, ResistanceDistribution.constant(populationResistance));
+    }
+
+    // Gaussian distribution with standard deviation skewed towards target resistance chance for the entire population
+    // Generally target resistance should be between 0 and 1 exclusive
+    // Depending on the standard deviation and target resistance picked, there may be many completely resistant or
+    // unresistant cellular automatons. The boolean allows for a re-roll of such resistance values, but this will cause
+    // a higher chance of automatons having a resistance close to the target even if the standard deviation is wide.
+    public void populateCells(
+            double initialInfectionPercent,
+            double targetResistance,
+            double standardDeviation,
+            boolean reroll){
+        populateCells(initialInfectionPercent,
+                ResistanceDistribution.skewedGaussian(targetResistance, standardDeviation, reroll));
+    }
+
+    // Uniform distribution resistance probability across the entire population.
+    public void populateCells(double initialInfectionPercentage){
+        populateCells(initialInfectionPercentage, ResistanceDistribution.uniform());
+    }
+
+    // Populate the simulation space with the resistance distribution, starting it over from time step 0.
+    // Every cell draws from its own stream of time step 0, so the rows of tiles are split into chunks that are
+    // populated in parallel when there is more than one thread and the simulation space is large enough to be worth
+    // it. Each chunk finds the states of its tiles and counts its cells as it goes.
+    public void populateCells(double initialInfectionPercentage, ResistanceDistribution resistance){
+        timeStep = 0;
+        resistance.useTable(cells);
+        statistics.clear();
+        ringCountedInfections = -1;
+        if(threadCount < 2 || cells.size() < PARALLEL_CELL_THRESHOLD){
+            populateTileRows(0, frontier.tilesY, initialInfectionPercentage, resistance, statistics);
+        } else {
+            PopulateTask task = new PopulateTask(this, 0, frontier.tilesY, initialInfectionPercentage, resistance);
+            getPool().invoke(task);
+            statistics.addCounts(task.counts);
+        }
+        frontier.invalidate();
+        if(events != null){ startEvents(); }
+    }
+
+    // Populate the rows of tiles from the start up to but not including the end and add their cells to the counts.
+    void populateTileRows(int rowStart, int rowEnd, double initialInfectionPercentage,
+                          ResistanceDistribution resistance, SimulationStatistics counts){
+        RandomStream rand = randomStreams.apply(seed);
+        for(int ty=rowStart; ty<rowEnd; ty++){
+            for(int tx=0; tx<frontier.tilesX; tx++){
+                byte state = 0;
+                for(int y=frontier.getYStart(ty); y<frontier.getYEnd(ty); y++){
+                    for(int x=frontier.getXStart(tx); x<frontier.getXEnd(tx); x++){
+                        int index = cells.getIndex(x, y);
+                        rand.setPosition(0, index);
+                        populateCell(cells, index, initialInfectionPercentage, resistance, rand);
+                        state |= FrontierMap.getCellState(cells, index);
+                        counts.countCell(cells, index);
+                    }
+                }
+                frontier.setTileState(frontier.getTile(tx, ty), state);
+            }
+        }
+    }
+
+    // Populate the automaton at the index with a resistance from the distribution, drawing from the stream positioned
+    // at it.
+    static void populateCell(CellGrid grid, int index, double initialInfectionPercentage,
+                             ResistanceDistribution resistance, RandomStream rand){
+        boolean infected = (rand.nextDouble() < initialInfectionPercentage);
+        CellularAutomaton.setInitialState(grid, index, infected, resistance.nextResistance(rand), rand);
+    }
+
+    // Count the whole simulation space and find the tiles that can change.
+    private void finishPopulation(){
+        frontier.reset(cells);
+        statistics.count(cells);
+    }
+
+    // Use the given number of threads to step the simulation. One thread steps the simulation on the calling thread.
+    // The pool of threads is only created once the simulation space is large enough to be stepped in parallel.
+    public void setThreadCount(int threads){
+        shutdown();
+        threadCount = Math.max(1, threads);
+        parallelStep = null;
+    }
+
+    // Step the simulation on a pool shared with other simulations. The pool is not shut down by this simulation.
+    public void setThreadPool(ForkJoinPool threadPool){
+        shutdown();
+        pool = threadPool;
+        threadCount = pool.getParallelism();
+        ownsPool = false;
+        parallelStep = null;
+    }
+
+    // Stop the threads of the pool this simulation created. A pool shared with other simulations is left running.
+    // The simulation can still be stepped afterwards, it creates a new pool if it needs one.
+    public void shutdown(){
+        if(ownsPool){ pool.shutdown(); }
+        pool = null;
+        ownsPool = false;
+    }
+
+    // The pool to step the simulation on in parallel, created the first time it is needed.
+    private ForkJoinPool getPool(){
+        if(pool == null){
+            pool = new ForkJoinPool(threadCount);
+            ownsPool = true;
+        }
+        return pool;
+    }
+
+    // Only evaluate the tiles of the simulation space holding cells that can change and carry the rest over unchanged.
+    // Sparse stepping produces exactly the same results as evaluating every cell.
+    public void setSparseStepping(boolean sparse){ sparseStepping = sparse; }
+
+    // Roll for an infection once for every contagious neighbor, or once for all of them together using the number of
+    // contagious neighbors on every radius. Rolling once costs about the same for every radius, but gives different
+    // results than rolling for every neighbor even though both are statistically the same.
+    public void setInfectionEvaluation(InfectionEvaluation infectionEvaluation){
+        evaluation = infectionEvaluation;
+        if(evaluation == InfectionEvaluation.RingAggregated && ringCounter == null){
+            ringCounter = new RingCounter(stencil);
+        }
+        if(events != null){ restartEvents(); }
+    }
+
+    // Step the simulation by scheduling the next change of every cell that can change and jumping from one change to
+    // the next, instead of evaluating the simulation space every time step. This is much faster while few cells are
+    // infected and slower once many are, since every cell that changes costs more than evaluating it in a grid.
+    // Event driven stepping produces exactly the same results as evaluating every cell, and can be turned on or off
+    // at any time step. It always runs on the calling thread.
+    public void setEventDriven(boolean eventDriven){
+        if(eventDriven && events == null){ startEvents(); }
+        else if(!eventDriven && events != null){
+            events.materialize(timeStep);
+            events = null;
+            // The other grid was used by the events and has to be written again.
+            frontier.reset(cells);
+        }
+    }
+
+    // Schedule every change from the current time step on.
+    private void startEvents(){
+        events = new EventEngine(cells, nextTimeStep, stencil, infection, evaluation, frontier,
+                randomStreams.apply(seed), removalDecayRate, daysToDeath);
+        events.start(timeStep);
+    }
+
+    // Schedule every change again after the way they are found has changed.
+    private void restartEvents(){
+        events.materialize(timeStep);
+        startEvents();
+    }
+
+    // Check if no cell can change anymore. No infected cell is still progressing and no cell that can be infected has
+    // a contagious cell within the contagious radius, so every later time step would be the same as this one.
+    public boolean isSettled(){ return frontier.isEmpty(); }
+
+    // Writes the state of all the cellular automatons for the next time step to the next time step grid.
+    // Every cell only reads the current grid, so the rows of tiles are split into bands that are stepped in parallel
+    // when there is more than one thread and the simulation space is large enough to be worth it.
+    public void getNextTimeStep(){
+        if(SimulationMetrics.ENABLED){ metrics.startStep(timeStep+1); }
+        if(events != null){
+            events.step(timeStep+1, nextStatistics);
+            if(SimulationMetrics.ENABLED){ metrics.endPhase(SimulationMetrics.Phase.Cells); }
+            nextStatistics.advance(statistics, nextStatistics);
+            if(SimulationMetrics.ENABLED){
+                metrics.endPhase(SimulationMetrics.Phase.Statistics);
+                metrics.endStep(nextStatistics);
+            }
+            return;
+        }
+        if(sparseStepping){ frontier.updateFrontier(); }
+        if(SimulationMetrics.ENABLED){ metrics.endPhase(SimulationMetrics.Phase.Frontier); }
+        if(evaluation == InfectionEvaluation.RingAggregated){ updateRingCounts(); }
+        if(SimulationMetrics.ENABLED){ metrics.endPhase(SimulationMetrics.Phase.RingCounts); }
+        if(threadCount < 2 || cells.size() < PARALLEL_CELL_THRESHOLD){
+            if(sequentialStep == null){
+                sequentialStep = new StepTask(this, 0, frontier.tilesY, createStream(), createKernel(),
+                        stencil.radius);
+            }
+            stepTileRows(sequentialStep);
+            if(SimulationMetrics.ENABLED){
+                metrics.endPhase(SimulationMetrics.Phase.Cells);
+                metrics.addBand(sequentialStep);
+            }
+            nextStatistics.advance(statistics, sequentialStep.statistics);
+            if(SimulationMetrics.ENABLED){
+                metrics.endPhase(SimulationMetrics.Phase.Statistics);
+                metrics.endStep(nextStatistics);
+            }
+            return;
+        }
+        if(parallelStep == null){
+            // Split into a few bands per thread so uneven bands balance out.
+            int bandCount = Math.min(frontier.tilesY, threadCount*4);
+            ArrayList<StepTask> bands = new ArrayList<>();
+            for(int i=0; i<bandCount; i++){
+                bands.add(new StepTask(this, i*frontier.tilesY/bandCount, (i+1)*frontier.tilesY/bandCount,
+                        createStream(), createKernel(), stencil.radius));
+            }
+            parallelStep = new StepTask(this, bands);
+            parallelBands = bands;
+        }
+        parallelStep.reinitialize();
+        getPool().invoke(parallelStep);
+        if(SimulationMetrics.ENABLED){ metrics.endPhase(SimulationMetrics.Phase.Cells); }
+
+        // Add up the state changes counted by every band.
+        nextStatistics.clearTransitions();
+        for(int i=0; i<parallelBands.size(); i++){
+            nextStatistics.addTransitions(parallelBands.get(i).statistics);
+            if(SimulationMetrics.ENABLED){ metrics.addBand(parallelBands.get(i)); }
+        }
+        nextStatistics.advance(statistics, nextStatistics);
+        if(SimulationMetrics.ENABLED){
+            metrics.endPhase(SimulationMetrics.Phase.Statistics);
+            metrics.endStep(nextStatistics);
+        }
+    }
+
+    // Build the ring counts from the contagious cells of the current grid, unless no cell was infected since they were
+    // last built. Large simulation spaces are built in parallel when there is more than one thread.
+    private void updateRingCounts(){
+        if(ringCountedInfections == statistics.getInfections()){ return; }
+        if(threadCount < 2 || cells.size() < PARALLEL_CELL_THRESHOLD){ ringCounter.update(cells); }
+        else{ ringCounter.update(cells, getPool()); }
+        ringCountedInfections = statistics.getInfections();
+    }
+
+    // A random stream for a band, which also counts its draws when metrics are enabled.
+    private RandomStream createStream(){
+        RandomStream stream = randomStreams.apply(seed);
+        return SimulationMetrics.ENABLED ? new CountingStream(stream):stream;
+    }
+
+    // A kernel advancing the infected cells of a band, which uses the Vector API when it is available.
+    private ProgressionKernel createKernel(){ return ProgressionKernel.create(removalDecayRate, daysToDeath); }
+
+    // Writes the next state of every cell in the band of rows of tiles and counts the state changes of the band.
+    // The cells draw from the streams of the time step being calculated.
+    void stepTileRows(StepTask band){
+        band.statistics.clearTransitions();
+        long allocated = 0;
+        if(SimulationMetrics.ENABLED){
+            band.evaluatedCells = band.skippedCells = band.neighborLookups = 0;
+            allocated = SimulationMetrics.getThreadAllocatedBytes();
+        }
+        for(int ty=band.rowStart; ty<band.rowEnd; ty++){
+            for(int tx=0; tx<frontier.tilesX; tx++){
+                int tile = frontier.getTile(tx, ty);
+                frontier.stepped[tile] = !sparseStepping || frontier.isFrontier(tile);
+                if(frontier.stepped[tile]){ frontier.nextTileState[tile] = stepTile(tx, ty, band); }
+                else{ carryOverTile(tx, ty); }
+                if(SimulationMetrics.ENABLED){
+                    long tileCells = (long) (frontier.getXEnd(tx)-frontier.getXStart(tx))
+                            *(frontier.getYEnd(ty)-frontier.getYStart(ty));
+                    if(frontier.stepped[tile]){ band.evaluatedCells += tileCells; }
+                    else{ band.skippedCells += tileCells; }
+                }
+            }
+        }
+        if(SimulationMetrics.ENABLED){ band.allocatedBytes = SimulationMetrics.getThreadAllocatedBytes()-allocated; }
+    }
+
+    // Writes the next state of every cell in the tile and returns the tile state of the next time step.
+    // The infected cells of every row of the tile are advanced together first, then the cells that can still be
+    // infected are evaluated one at a time.
+    private byte stepTile(int tx, int ty, StepTask band){
+        byte state = 0;
+        int xStart = frontier.getXStart(tx), xEnd = frontier.getXEnd(tx);
+        for(int y=frontier.getYStart(ty); y<frontier.getYEnd(ty); y++){
+            band.progression.progress(cells, nextTimeStep, cells.getIndex(xStart, y), cells.getIndex(xEnd, y),
+                    band.rand, timeStep+1);
+            for(int x=xStart; x<xEnd; x++){
+                int index = cells.getIndex(x, y);
+                if(!cells.isContagious(index)){
+                    int lookups;
+                    if(evaluation == InfectionEvaluation.RingAggregated){
+                        lookups = CellularAutomaton.getNextStateAggregated(
+                                cells,
+                                nextTimeStep,
+                                x,
+                                y,
+                                index,
+                                ringCounter,
+                                band.counts,
+                                band.rand,
+                                timeStep+1,
+                                infection,
+                                removalDecayRate,
+                                daysToDeath);
+                    } else {
+                        lookups = CellularAutomaton.getNextState(
+                                cells,
+                                nextTimeStep,
+                                x,
+                                y,
+                                index,
+                                stencil,
+                                band.rand,
+                                timeStep+1,
+                                infection,
+                                removalDecayRate,
+                                daysToDeath);
+                    }
+                    if(SimulationMetrics.ENABLED){ band.neighborLookups += lookups; }
+                }
+                state |= FrontierMap.getCellState(nextTimeStep, index);
+                band.statistics.countTransition(cells, nextTimeStep, index);
+            }
+        }
+        return state;
+    }
+
+    // Carries a settled tile over to the next time step. The next grid only has to be written if it still holds an
+    // older state of the tile.
+    private void carryOverTile(int tx, int ty){
+        int tile = frontier.getTile(tx, ty);
+        if(frontier.backStale[tile]){
+            for(int y=frontier.getYStart(ty); y<frontier.getYEnd(ty); y++){
+                nextTimeStep.copyStates(cells, cells.getIndex(frontier.getXStart(tx), y),
+                        cells.getIndex(frontier.getXEnd(tx), y));
+            }
+        }
+        frontier.nextTileState[tile] = frontier.tileState[tile];
+    }
+
+    // Swaps the next time step grid in as the current state of the simulation.
+    // Generally this should follow a call to the above getNextTimeStep() method.
+    // The old grid is reused to hold the following time step, so stepping never allocates a grid.
+    // Event driven stepping applies the changes to the current grid instead.
+    public void updateTimeStep(){
+        if(events != null){
+            events.apply();
+            statistics.copyFrom(nextStatistics);
+            timeStep++;
+            return;
+        }
+        CellGrid previous = cells;
+        cells = nextTimeStep;
+        nextTimeStep = previous;
+        frontier.swap();
+        statistics.copyFrom(nextStatistics);
+        timeStep++;
+    }
+
+    // Get the counts of the current time step. The same object is updated in place every time step.
+    public SimulationStatistics getStatistics(){ return statistics; }
+
+    // Get the measurements of stepping this simulation, which are only taken when metrics are enabled.
+    public SimulationMetrics getMetrics(){ return metrics; }
+
+    // Get the grid holding the current state of the simulation space.
+    CellGrid getCells(){
+        if(events != null){ events.materialize(timeStep); }
+        return cells;
+    }
+
+    // Continue the simulation from the time step after the current grid was restored into it.
+    // The counts are taken from the restored grid, the state changes of the restored time step are given.
+    void restore(long restoredTimeStep, int newInfections, int newDeaths, int newRemovals){
+        timeStep = restoredTimeStep;
+        ringCountedInfections = -1;
+        finishPopulation();
+        if(events != null){ startEvents(); }
+        statistics.newInfections = newInfections;
+        statistics.newDeaths = newDeaths;
+        statistics.newRemovals = newRemovals;
+    }
+}
@@ -0,0 +1,217 @@
+package epidemic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jdk.jfr.EventType;
+
+// This class measures where the time of a simulation goes: the wall time of every time step and of each phase within
+// it, the cells evaluated and skipped, the neighbors looked at, the random numbers drawn, the bytes allocated while
+// stepping the cells and the state changes. Every time step is also recorded as flight recorder events, which only
+// cost anything while a recording with them enabled is running: the events are only created when it is.
+// Metrics are turned on by starting the JVM with -Depidemic.metrics=true. The switch is a static final constant, so
+// when metrics are off the JIT removes every measurement from the stepping loop and they cost nothing.
+// The counters add up over every time step since the simulation was created. Only the stepping thread writes them,
+// once at the end of every time step and without taking a lock, so they can be read from any thread, but counters read
+// while a time step is being added may be from either side of it.
+public class SimulationMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("epidemic.metrics");
+
+    // The phases of calculating a time step, in order.
+    public enum Phase {Frontier, RingCounts, Cells, Statistics}
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // Looked up only when metrics are enabled, so the flight recorder is not loaded otherwise.
+    private static final EventType STEP_EVENTS = ENABLED ? EventType.getEventType(StepEvent.class):null;
+    private static final EventType PHASE_EVENTS = ENABLED ? EventType.getEventType(PhaseEvent.class):null;
+
+    // Only the stepping thread writes the counters, so adding to them does not lose counts.
+    private volatile long steps, evaluatedCells, skippedCells, neighborLookups, randomDraws, allocatedBytes;
+    private volatile long newInfections, newDeaths, newRemovals;
+    private final Histogram stepTime = new Histogram();
+    private final Histogram[] phaseTime = new Histogram[Phase.values().length];
+    // Counts of the time step being calculated, only touched by the stepping thread.
+    private long stepStart, phaseStart, stepTimeStep;
+    private long stepEvaluated, stepSkipped, stepLookups, stepDraws, stepAllocated;
+    // Nanoseconds of every phase of the time step, or -1 for a phase the time step did not go through.
+    private final long[] stepPhaseTime = new long[Phase.values().length];
+    // The events of the time step and its current phase, or null when no recording has them enabled.
+    private StepEvent stepEvent;
+    private PhaseEvent phaseEvent;
+
+    // This class counts values in buckets that double in size, so it covers any range of values in a fixed space.
+    // Bucket b holds the values from 2^(b-1) up to 2^b-1, and bucket 0 holds 0.
+    // Values are recorded by one thread only, and can be read from any thread.
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private volatile long count, total, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+
+        void record(long value){
+            buckets.incrementAndGet(64-Long.numberOfLeadingZeros(Math.max(0, value)));
+            count++;
+            total += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        Histogram copy(){
+            Histogram copy = new Histogram();
+            for(int b=0; b<buckets.length(); b++){ copy.buckets.set(b, buckets.get(b)); }
+            copy.count = count;
+            copy.total = total;
+            copy.min = min;
+            copy.max = max;
+            return copy;
+        }
+
+        public long getCount(){ return count; }
+        public long getTotal(){ return total; }
+        public long getMin(){ return count > 0 ? min:0; }
+        public long getMax(){ return count > 0 ? max:0; }
+        public double getMean(){ return count > 0 ? (double) total/count:0; }
+
+        // Upper bound of the percentile of the values, to within a factor of two.
+        public long getPercentile(double percentile){
+            long rank = (long) Math.ceil(percentile/100*count);
+            long seen = 0;
+            for(int b=0; b<buckets.length(); b++){
+                seen += buckets.get(b);
+                if(seen >= rank && seen > 0){ return Math.min(max, b == 0 ? 0:(1L << b)-1); }
+            }
+            return getMax();
+        }
+
+        @Override
+        public String toString(){
+            return "count="+count+" mean="+Math.round(getMean())+" p50="+getPercentile(50)+" p99="
+                    +getPercentile(99)+" max="+getMax();
+        }
+    }
+
+    SimulationMetrics(){
+        for(int i=0; i<phaseTime.length; i++){ phaseTime[i] = new Histogram(); }
+    }
+
+    // Bytes allocated by the current thread so far, or 0 if the JVM does not measure it.
+    static long getThreadAllocatedBytes(){
+        if(THREADS instanceof com.sun.management.ThreadMXBean){
+            return Math.max(0, ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes());
+        }
+        return 0;
+    }
+
+    // Start measuring the calculation of the time step.
+    void startStep(long timeStep){
+        stepTimeStep = timeStep;
+        stepEvaluated = stepSkipped = stepLookups = stepDraws = stepAllocated = 0;
+        Arrays.fill(stepPhaseTime, -1);
+        stepEvent = STEP_EVENTS.isEnabled() ? new StepEvent():null;
+        if(stepEvent != null){ stepEvent.begin(); }
+        phaseEvent = beginPhaseEvent();
+        stepStart = phaseStart = System.nanoTime();
+    }
+
+    // A started event for the next phase, or null when no recording has phase events enabled.
+    private static PhaseEvent beginPhaseEvent(){
+        if(!PHASE_EVENTS.isEnabled()){ return null; }
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    // The phase ends now and the next one starts.
+    void endPhase(Phase phase){
+        long now = System.nanoTime();
+        stepPhaseTime[phase.ordinal()] = now-phaseStart;
+        phaseStart = now;
+        if(phaseEvent != null){
+            phaseEvent.end();
+            if(phaseEvent.shouldCommit()){
+                phaseEvent.timeStep = stepTimeStep;
+                phaseEvent.phase = phase.name();
+                phaseEvent.commit();
+            }
+        }
+        phaseEvent = beginPhaseEvent();
+    }
+
+    // Add the counts of a band that was stepped.
+    void addBand(StepTask band){
+        stepEvaluated += band.evaluatedCells;
+        stepSkipped += band.skippedCells;
+        stepLookups += band.neighborLookups;
+        stepAllocated += band.allocatedBytes;
+        if(band.rand instanceof CountingStream){ stepDraws += ((CountingStream) band.rand).takeDraws(); }
+    }
+
+    // The time step has been calculated, with the state changes counted in the statistics. The counts of the time step
+    // are added to the totals.
+    void endStep(SimulationStatistics next){
+        stepTime.record(System.nanoTime()-stepStart);
+        for(int i=0; i<stepPhaseTime.length; i++){
+            if(stepPhaseTime[i] >= 0){ phaseTime[i].record(stepPhaseTime[i]); }
+        }
+        steps++;
+        evaluatedCells += stepEvaluated;
+        skippedCells += stepSkipped;
+        neighborLookups += stepLookups;
+        randomDraws += stepDraws;
+        allocatedBytes += stepAllocated;
+        newInfections += next.getNewInfections();
+        newDeaths += next.getNewDeaths();
+        newRemovals += next.getNewRemovals();
+        if(stepEvent != null){ stepEvent.end(); }
+        if(stepEvent != null && stepEvent.shouldCommit()){
+            stepEvent.timeStep = stepTimeStep;
+            stepEvent.evaluatedCells = stepEvaluated;
+            stepEvent.skippedCells = stepSkipped;
+            stepEvent.neighborLookups = stepLookups;
+            stepEvent.randomDraws = stepDraws;
+            stepEvent.allocatedBytes = stepAllocated;
+            stepEvent.newInfections = next.getNewInfections();
+            stepEvent.newDeaths = next.getNewDeaths();
+            stepEvent.newRemovals = next.getNewRemovals();
+            stepEvent.commit();
+        }
+        stepEvent = null;
+        phaseEvent = null;
+    }
+
+    public long getSteps(){ return steps; }
+    public long getEvaluatedCells(){ return evaluatedCells; }
+    public long getSkippedCells(){ return skippedCells; }
+    // Neighbors looked at when rolling for every neighbor, or rings counted when rolling once for all of them.
+    public long getNeighborLookups(){ return neighborLookups; }
+    public long getRandomDraws(){ return randomDraws; }
+    // Bytes allocated by the threads stepping the cells.
+    public long getAllocatedBytes(){ return allocatedBytes; }
+    public long getNewInfections(){ return newInfections; }
+    public long getNewDeaths(){ return newDeaths; }
+    public long getNewRemovals(){ return newRemovals; }
+
+    // Nanoseconds taken by every time step, as a copy that no longer changes.
+    public Histogram getStepTime(){ return stepTime.copy(); }
+
+    // Nanoseconds taken by the phase of every time step, as a copy that no longer changes.
+    public Histogram getPhaseTime(Phase phase){ return phaseTime[phase.ordinal()].copy(); }
+
+    @Override
+    public String toString(){
+        StringBuilder builder = new StringBuilder();
+        builder.append("Steps: ").append(steps).append('\n');
+        builder.append("Evaluated cells: ").append(evaluatedCells).append('\n');
+        builder.append("Skipped cells: ").append(skippedCells).append('\n');
+        builder.append("Neighbor lookups: ").append(neighborLookups).append('\n');
+        builder.append("Random draws: ").append(randomDraws).append('\n');
+        builder.append("Allocated bytes: ").append(allocatedBytes).append('\n');
+        builder.append("State changes: ").append(newInfections).append(" infections, ").append(newDeaths)
+                .append(" deaths, ").append(newRemovals).append(" removals\n");
+        builder.append("Step time (ns): ").append(stepTime).append('\n');
+        for(Phase phase : Phase.values()){
+            builder.append(phase).append(" time (ns): ").append(phaseTime[phase.ordinal()]).append('\n');
+        }
+        return builder.toString();
+    }
+}
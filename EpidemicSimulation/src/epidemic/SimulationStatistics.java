@@ -0,0 +1,79 @@
+package epidemic;
+
+// This class counts the cellular automatons of a simulation in each state, and the automatons that entered each state
+// on the last time step. The counts are kept up to date while the simulation is stepped.
+public class SimulationStatistics {
+    int infections, deaths, removals;
+    int newInfections, newDeaths, newRemovals;
+
+    public int getInfections(){ return infections; }
+    public int getDeaths(){ return deaths; }
+    public int getRemovals(){ return removals; }
+    public int getNewInfections(){ return newInfections; }
+    public int getNewDeaths(){ return newDeaths; }
+    public int getNewRemovals(){ return newRemovals; }
+
+    // Check if no automaton changed state on the last time step.
+    public boolean isUnchanged(){ return newInfections == 0 && newDeaths == 0 && newRemovals == 0; }
+
+    // Count the automatons of the grid in each state. Nothing has changed state yet.
+    void count(CellGrid grid){
+        clear();
+        for(int i=0; i<grid.size(); i++){ countCell(grid, i); }
+    }
+
+    // Start every count over from 0.
+    void clear(){
+        infections = deaths = removals = 0;
+        newInfections = newDeaths = newRemovals = 0;
+    }
+
+    // Add the automaton at the index of the grid to the counts of each state.
+    void countCell(CellGrid grid, int index){
+        if(grid.isContagious(index)){ infections++; }
+        if(grid.isDead(index)){ deaths++; }
+        if(grid.isRemoved(index)){ removals++; }
+    }
+
+    // Count the state changes of the automaton at the index from the current grid to the next grid.
+    void countTransition(CellGrid current, CellGrid next, int index){
+        if(next.isContagious(index) && !current.isContagious(index)){ newInfections++; }
+        if(next.isDead(index) && !current.isDead(index)){ newDeaths++; }
+        if(next.isRemoved(index) && !current.isRemoved(index)){ newRemovals++; }
+    }
+
+    void clearTransitions(){ newInfections = newDeaths = newRemovals = 0; }
+
+    // Add the automatons counted in another part of the simulation space to these counts.
+    void addCounts(SimulationStatistics other){
+        infections += other.infections;
+        deaths += other.deaths;
+        removals += other.removals;
+    }
+
+    // Add the state changes counted by another part of the same time step.
+    void addTransitions(SimulationStatistics other){
+        newInfections += other.newInfections;
+        newDeaths += other.newDeaths;
+        newRemovals += other.newRemovals;
+    }
+
+    // Apply the state changes of a time step to the counts of the time step before it.
+    void advance(SimulationStatistics previous, SimulationStatistics transitions){
+        newInfections = transitions.newInfections;
+        newDeaths = transitions.newDeaths;
+        newRemovals = transitions.newRemovals;
+        infections = previous.infections+newInfections;
+        deaths = previous.deaths+newDeaths;
+        removals = previous.removals+newRemovals;
+    }
+
+    void copyFrom(SimulationStatistics source){
+        infections = source.infections;
+        deaths = source.deaths;
+        removals = source.removals;
+        newInfections = source.newInfections;
+        newDeaths = source.newDeaths;
+        newRemovals = source.newRemovals;
+    }
+}
@@ -0,0 +1,141 @@
+package epidemic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// This class carries the messages of a distributed simulation over TCP connections, one connection per pair of
+// endpoints that talk to each other. Every endpoint listens at its own address. Connections are opened by the endpoint
+// with the higher number, so the endpoints can start in any order.
+// A thread per connection keeps reading incoming messages into a queue, so sending never waits for the receiver.
+public class SocketHaloTransport implements HaloTransport {
+    // Milliseconds to keep trying to reach an endpoint that has not started listening yet.
+    private static final int CONNECT_TIMEOUT = 60000;
+    // Marks a closed connection in a queue of incoming messages.
+    private static final byte[] CLOSED = new byte[0];
+
+    private final int endpoint;
+    private final DataOutputStream[] outputs;
+    private final Socket[] sockets;
+    private final BlockingQueue<byte[]>[] inboxes;
+
+    // Parameters:
+    // self = number of this endpoint
+    // peers = numbers of the endpoints this endpoint talks to, which may include itself
+    // addresses = address every endpoint listens at, by endpoint number
+    @SuppressWarnings("unchecked")
+    SocketHaloTransport(int self, int[] peers, InetSocketAddress[] addresses) throws IOException {
+        endpoint = self;
+        outputs = new DataOutputStream[addresses.length];
+        sockets = new Socket[addresses.length];
+        inboxes = (BlockingQueue<byte[]>[]) new BlockingQueue<?>[addresses.length];
+        for(int peer : peers){ inboxes[peer] = new LinkedBlockingQueue<>(); }
+
+        int accepting = 0;
+        for(int peer : peers){
+            if(peer > self){ accepting++; }
+        }
+        try(ServerSocket server = new ServerSocket()){
+            server.bind(addresses[self]);
+            // Open the connections to the endpoints with lower numbers, then wait for the ones with higher numbers.
+            for(int peer : peers){
+                if(peer < self){
+                    Socket socket = connect(addresses[peer]);
+                    new DataOutputStream(socket.getOutputStream()).writeInt(self);
+                    open(peer, socket);
+                }
+            }
+            for(int i=0; i<accepting; i++){
+                Socket socket = server.accept();
+                open(new DataInputStream(socket.getInputStream()).readInt(), socket);
+            }
+        }
+    }
+
+    private static Socket connect(InetSocketAddress address) throws IOException {
+        long deadline = System.currentTimeMillis()+CONNECT_TIMEOUT;
+        while(true){
+            try{
+                return new Socket(address.getAddress(), address.getPort());
+            }catch(ConnectException e){
+                if(System.currentTimeMillis() > deadline){ throw e; }
+                try{ Thread.sleep(50); }
+                catch(InterruptedException interrupted){
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Start using the connection to the peer and keep reading the messages it sends.
+    private void open(int peer, Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        sockets[peer] = socket;
+        outputs[peer] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        BlockingQueue<byte[]> inbox = inboxes[peer];
+        Thread reader = new Thread(() -> {
+            try{
+                while(true){
+                    byte[] message = new byte[input.readInt()];
+                    input.readFully(message);
+                    inbox.put(message);
+                }
+            }catch(IOException | InterruptedException e){
+                inbox.offer(CLOSED);
+            }
+        }, "Halo reader "+endpoint+"<-"+peer);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void send(int peer, byte[] message, int length) throws IOException {
+        if(peer == endpoint){
+            byte[] copy = new byte[length];
+            System.arraycopy(message, 0, copy, 0, length);
+            inboxes[peer].add(copy);
+            return;
+        }
+        DataOutputStream output = outputs[peer];
+        output.writeInt(length);
+        output.write(message, 0, length);
+        output.flush();
+    }
+
+    @Override
+    public void receive(int peer, byte[] message, int length) throws IOException {
+        byte[] received;
+        try{
+            received = inboxes[peer].take();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for endpoint "+peer+".");
+        }
+        if(received == CLOSED){
+            inboxes[peer].offer(CLOSED);
+            throw new IOException("Connection to endpoint "+peer+" closed.");
+        }
+        if(received.length != length){
+            throw new IOException("Expected "+length+" bytes from endpoint "+peer+" but got "+received.length+".");
+        }
+        System.arraycopy(received, 0, message, 0, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(Socket socket : sockets){
+            if(socket != null){ socket.close(); }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package epidemic;
+
+// This class is a counter based random stream built on the SplitMix64 generator.
+// Positioning the stream hashes the master seed, time step and cell index into a fresh generator state, so streams
+// are independent of each other and cheap enough to position once per cell per time step.
+public class SplitMixStream implements RandomStream {
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private long state;
+    private double nextGaussian;
+    private boolean haveNextGaussian;
+
+    SplitMixStream(long masterSeed){
+        seed = masterSeed;
+        setPosition(0, 0);
+    }
+
+    // The master seed the streams are derived from.
+    long getSeed(){ return seed; }
+
+    @Override
+    public void setPosition(long timeStep, int index){
+        state = mix64(mix64(seed+timeStep*GOLDEN_GAMMA)+index);
+        haveNextGaussian = false;
+    }
+
+    @Override
+    public double nextDouble(){ return (nextLong() >>> 11)*0x1.0p-53; }
+
+    // Polar method, the same one java.util.Random uses. Every second value is kept for the next call.
+    @Override
+    public double nextGaussian(){
+        if(haveNextGaussian){
+            haveNextGaussian = false;
+            return nextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2*nextDouble()-1;
+            v2 = 2*nextDouble()-1;
+            s = v1*v1+v2*v2;
+        } while(s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2*StrictMath.log(s)/s);
+        nextGaussian = v2*multiplier;
+        haveNextGaussian = true;
+        return v1*multiplier;
+    }
+
+    public long nextLong(){
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer.
+    static long mix64(long z){
+        z = (z^(z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z^(z >>> 27))*0x94d049bb133111ebL;
+        return z^(z >>> 31);
+    }
+}
@@ -0,0 +1,44 @@
+package epidemic;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight recorder event covering the calculation of one time step of a simulation.
+@Name("epidemic.Step")
+@Label("Simulation Step")
+@Category("Epidemic Simulation")
+@Description("Calculation of the next time step of a simulation")
+class StepEvent extends Event {
+    @Label("Time Step")
+    long timeStep;
+
+    @Label("Evaluated Cells")
+    long evaluatedCells;
+
+    @Label("Skipped Cells")
+    @Description("Cells of settled tiles carried over without being evaluated")
+    long skippedCells;
+
+    @Label("Neighbor Lookups")
+    long neighborLookups;
+
+    @Label("Random Draws")
+    long randomDraws;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("New Infections")
+    int newInfections;
+
+    @Label("New Deaths")
+    int newDeaths;
+
+    @Label("New Removals")
+    int newRemovals;
+}
@@ -0,0 +1,57 @@
+package epidemic;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+// This class steps a band of rows of tiles of a simulation, either on a fork join pool or on the calling thread.
+// Each band keeps its own random stream and scratch space, so the bands are created once and reused every time step
+// without creating any garbage. The root task holds every band and steps them all in parallel.
+class StepTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Simulation simulation;
+    private final List<StepTask> bands;
+    final int rowStart, rowEnd;
+    final RandomStream rand;
+    // Advances the infected cells of the band, with scratch space of its own.
+    final ProgressionKernel progression;
+    // Contagious neighbors on each radius when rolling for all neighbors together.
+    final int[] counts;
+    // State changes counted by this band on the last time step.
+    final SimulationStatistics statistics;
+    // Metrics of this band on the last time step, only counted when metrics are enabled.
+    long evaluatedCells, skippedCells, neighborLookups, allocatedBytes;
+
+    // A band of the rows of tiles from the start up to but not including the end.
+    StepTask(Simulation sim, int start, int end, RandomStream stream, ProgressionKernel kernel, int radius){
+        simulation = sim;
+        bands = null;
+        rowStart = start;
+        rowEnd = end;
+        rand = stream;
+        progression = kernel;
+        counts = new int[radius+1];
+        statistics = new SimulationStatistics();
+    }
+
+    // The root task of all the bands.
+    StepTask(Simulation sim, List<StepTask> allBands){
+        simulation = sim;
+        bands = allBands;
+        rowStart = rowEnd = 0;
+        rand = null;
+        progression = null;
+        counts = null;
+        statistics = null;
+    }
+
+    @Override
+    protected void compute(){
+        if(bands == null){
+            simulation.stepTileRows(this);
+            return;
+        }
+        for(int i=0; i<bands.size(); i++){ bands.get(i).reinitialize(); }
+        invokeAll(bands);
+    }
+}
@@ -0,0 +1,98 @@
+package epidemic;
+
+import java.util.Arrays;
+
+// This class splits the simulation space into a grid of rectangular subdomains, one for each worker of a distributed
+// simulation. Workers are numbered row by row. The simulation space wraps around, so every subdomain has a neighbor on
+// each side, which is the subdomain itself when there is only one column or row.
+// Every worker holds its subdomain padded by a halo as wide as the contagious radius on each side, which it fills with
+// the edges of its neighbors every time step. A halo only reaches as far as the next subdomain, so subdomains have to
+// be at least as wide and high as the radius.
+public class SubdomainLayout {
+    final int width, height, columns, rows, radius;
+
+    // Parameters:
+    // w = width of simulation space
+    // h = height of simulation space
+    // columnCount = number of subdomains across the simulation space
+    // rowCount = number of subdomains down the simulation space
+    // r = contagious radius, after limiting it to the size of the simulation space
+    SubdomainLayout(int w, int h, int columnCount, int rowCount, int r){
+        width = w;
+        height = h;
+        columns = columnCount;
+        rows = rowCount;
+        radius = r;
+        if(columns < 1 || rows < 1 || width/columns < Math.max(1, radius) || height/rows < Math.max(1, radius)){
+            throw new IllegalArgumentException("Subdomains of a "+width+"x"+height+" simulation space split into "
+                    +columns+"x"+rows+" are smaller than the radius of "+radius+".");
+        }
+    }
+
+    public int getWorkerCount(){ return columns*rows; }
+
+    // The coordinator is the endpoint after the last worker.
+    public int getCoordinator(){ return columns*rows; }
+
+    public int getColumn(int worker){ return worker%columns; }
+    public int getRow(int worker){ return worker/columns; }
+
+    // First column and row of the simulation space in the subdomain and the size of the subdomain.
+    // The remainder of the simulation space is spread over the first subdomains.
+    public int getXStart(int worker){ return start(getColumn(worker), columns, width); }
+    public int getYStart(int worker){ return start(getRow(worker), rows, height); }
+    public int getWidth(int worker){ return start(getColumn(worker)+1, columns, width)-getXStart(worker); }
+    public int getHeight(int worker){ return start(getRow(worker)+1, rows, height)-getYStart(worker); }
+
+    private static int start(int part, int parts, int length){
+        return part*(length/parts)+Math.min(part, length%parts);
+    }
+
+    // First column and row of the tiles of the frontier map of the whole simulation space the subdomain overlaps, and
+    // the number of columns and rows of them. Tiles on the edge of a subdomain can be shared with its neighbors.
+    public int getTileXStart(int worker){ return getXStart(worker)/FrontierMap.TILE_SIZE; }
+    public int getTileYStart(int worker){ return getYStart(worker)/FrontierMap.TILE_SIZE; }
+    public int getTileColumns(int worker){
+        return (getXStart(worker)+getWidth(worker)-1)/FrontierMap.TILE_SIZE-getTileXStart(worker)+1;
+    }
+    public int getTileRows(int worker){
+        return (getYStart(worker)+getHeight(worker)-1)/FrontierMap.TILE_SIZE-getTileYStart(worker)+1;
+    }
+
+    // Length of the report a worker sends to the coordinator after every time step: the counts of its subdomain
+    // followed by the state of every tile it overlaps.
+    public int getReportBytes(int worker){
+        return SubdomainWorker.STATISTICS_BYTES+getTileColumns(worker)*getTileRows(worker);
+    }
+
+    // Workers holding the neighboring subdomains.
+    public int getLeft(int worker){ return getWorker((getColumn(worker)+columns-1)%columns, getRow(worker)); }
+    public int getRight(int worker){ return getWorker((getColumn(worker)+1)%columns, getRow(worker)); }
+    public int getUp(int worker){ return getWorker(getColumn(worker), (getRow(worker)+rows-1)%rows); }
+    public int getDown(int worker){ return getWorker(getColumn(worker), (getRow(worker)+1)%rows); }
+
+    private int getWorker(int column, int row){ return row*columns+column; }
+
+    // Endpoints the endpoint exchanges messages with, without repeats. Workers talk to their neighbors and the
+    // coordinator, the coordinator talks to every worker.
+    public int[] getPeers(int endpoint){
+        if(endpoint == getCoordinator()){
+            int[] workers = new int[getWorkerCount()];
+            for(int i=0; i<workers.length; i++){ workers[i] = i; }
+            return workers;
+        }
+        return Arrays.stream(new int[]{getLeft(endpoint), getRight(endpoint), getUp(endpoint), getDown(endpoint),
+                getCoordinator()}).distinct().toArray();
+    }
+
+    // Length of the longest message between two endpoints, the longest halo strip or report.
+    public int getMaxMessage(){
+        int longest = 0;
+        for(int worker=0; worker<getWorkerCount(); worker++){
+            longest = Math.max(longest, getReportBytes(worker));
+            longest = Math.max(longest, radius*getHeight(worker));
+            longest = Math.max(longest, radius*(getWidth(worker)+2*radius));
+        }
+        return longest;
+    }
+}
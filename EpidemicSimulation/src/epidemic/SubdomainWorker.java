@@ -0,0 +1,209 @@
+package epidemic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// This class steps one subdomain of a distributed simulation.
+// The subdomain is held padded by a halo as wide as the contagious radius on every side, so every cell of the
+// subdomain finds all of its neighbors without wrapping around. Before every time step the edges of the subdomain are
+// sent to the neighboring workers and the halo is filled with theirs, first across and then down, so the corners of
+// the halo come along with the second exchange.
+// Every cell draws from the stream of its index in the whole simulation space, so a distributed simulation produces
+// exactly the same results as a single simulation with the same parameters and seed.
+// After every time step the counts of the subdomain and the states of the tiles it overlaps are sent to the
+// coordinator, which answers whether to continue.
+public class SubdomainWorker {
+    // Infections, deaths and removals followed by their state changes on the last time step.
+    static final int STATISTICS_BYTES = 6*4;
+
+    private final SubdomainLayout layout;
+    private final int worker;
+    private final HaloTransport transport;
+    private final int radius, width, height, paddedWidth, paddedHeight;
+    private final int daysToDeath;
+    private final double removalDecay;
+    private CellGrid cells, nextTimeStep;
+    private final NeighborhoodStencil stencil;
+    private final InfectionTable infection;
+    private RingCounter ringCounter;
+    private final RandomStream rand;
+    private final int[] counts;
+    private long timeStep;
+    private final SimulationStatistics statistics = new SimulationStatistics();
+    private final SimulationStatistics transitions = new SimulationStatistics();
+    private final byte[] strip, message;
+    // Tile states of the current grid for every tile of the whole simulation space the subdomain overlaps, and the
+    // tile of every column and the first tile of every row of the subdomain.
+    private final byte[] tileStates;
+    private final int[] columnTiles, rowTiles;
+
+    // This stream positions the stream of the whole simulation space at the cell a padded subdomain index stands for.
+    private static class SubdomainStream implements RandomStream {
+        private final RandomStream stream;
+        private final int paddedWidth, xOffset, yOffset, globalWidth;
+
+        SubdomainStream(RandomStream globalStream, int padded, int x, int y, int global){
+            stream = globalStream;
+            paddedWidth = padded;
+            xOffset = x;
+            yOffset = y;
+            globalWidth = global;
+        }
+
+        // Only cells of the subdomain draw random numbers, so the index never has to wrap around.
+        @Override
+        public void setPosition(long timeStep, int index){
+            stream.setPosition(timeStep, (index/paddedWidth+yOffset)*globalWidth+index%paddedWidth+xOffset);
+        }
+
+        @Override
+        public double nextDouble(){ return stream.nextDouble(); }
+
+        @Override
+        public double nextGaussian(){ return stream.nextGaussian(); }
+    }
+
+    // The parameters are those of the whole simulation. The seed has to be the same for every worker.
+    SubdomainWorker(SubdomainLayout subdomains, int workerNumber, HaloTransport haloTransport,
+                    Neighborhood neighborhood, int deathTime, double infectionProbability, double contagionDecay,
+                    double removalDecayRate, InfectionEvaluation infectionEvaluation, long masterSeed){
+        if(deathTime > CellGrid.MAX_DAYS_INFECTED){
+            throw new IllegalArgumentException("Death time can be at most "+CellGrid.MAX_DAYS_INFECTED+" days.");
+        }
+        layout = subdomains;
+        worker = workerNumber;
+        transport = haloTransport;
+        radius = layout.radius;
+        width = layout.getWidth(worker);
+        height = layout.getHeight(worker);
+        paddedWidth = width+2*radius;
+        paddedHeight = height+2*radius;
+        daysToDeath = deathTime;
+        removalDecay = removalDecayRate;
+        cells = new CellGrid(paddedWidth, paddedHeight);
+        nextTimeStep = new CellGrid(cells);
+        CellGrid.pair(cells, nextTimeStep);
+        stencil = NeighborhoodStencil.create(neighborhood, radius, paddedWidth, paddedHeight);
+        infection = new InfectionTable(radius, infectionProbability, contagionDecay);
+        if(infectionEvaluation == InfectionEvaluation.RingAggregated){ ringCounter = new RingCounter(stencil); }
+        rand = new SubdomainStream(new SplitMixStream(masterSeed), paddedWidth,
+                layout.getXStart(worker)-radius, layout.getYStart(worker)-radius, layout.width);
+        counts = new int[radius+1];
+        strip = new byte[layout.getMaxMessage()];
+        message = new byte[layout.getReportBytes(worker)];
+        tileStates = new byte[layout.getTileColumns(worker)*layout.getTileRows(worker)];
+        columnTiles = new int[width];
+        for(int x=0; x<width; x++){
+            columnTiles[x] = (layout.getXStart(worker)+x)/FrontierMap.TILE_SIZE-layout.getTileXStart(worker);
+        }
+        rowTiles = new int[height];
+        for(int y=0; y<height; y++){
+            rowTiles[y] = ((layout.getYStart(worker)+y)/FrontierMap.TILE_SIZE-layout.getTileYStart(worker))
+                    *layout.getTileColumns(worker);
+        }
+    }
+
+    // Populate the subdomain the same way Simulation.populateCells populates the whole simulation space.
+    public void populateCells(double initialInfectionPercentage, ResistanceDistribution resistance){
+        resistance.useTable(cells);
+        timeStep = 0;
+        statistics.clear();
+        Arrays.fill(tileStates, (byte) 0);
+        for(int y=radius; y<radius+height; y++){
+            for(int x=radius; x<radius+width; x++){
+                int index = cells.getIndex(x, y);
+                rand.setPosition(timeStep, index);
+                Simulation.populateCell(cells, index, initialInfectionPercentage, resistance, rand);
+                statistics.countCell(cells, index);
+                tileStates[rowTiles[y-radius]+columnTiles[x-radius]] |= FrontierMap.getCellState(cells, index);
+            }
+        }
+    }
+
+    // Report the populated subdomain and keep stepping until the coordinator says to stop.
+    public void run() throws IOException {
+        while(report()){
+            exchangeHalo();
+            step();
+        }
+    }
+
+    // Send the counts and tile states of the subdomain to the coordinator and return whether it wants another time
+    // step.
+    private boolean report() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        buffer.putInt(statistics.getInfections()).putInt(statistics.getDeaths()).putInt(statistics.getRemovals());
+        buffer.putInt(statistics.getNewInfections()).putInt(statistics.getNewDeaths());
+        buffer.putInt(statistics.getNewRemovals());
+        buffer.put(tileStates);
+        transport.send(layout.getCoordinator(), message, message.length);
+        transport.receive(layout.getCoordinator(), message, 1);
+        return message[0] != 0;
+    }
+
+    // Fill the halo of the current grid with the edges of the neighboring subdomains.
+    // Strips are always passed right, then left, then down, then up, so even when the same worker is the neighbor on
+    // both sides the strips arrive in the order they are expected in.
+    private void exchangeHalo() throws IOException {
+        if(radius == 0){ return; }
+        int left = layout.getLeft(worker), right = layout.getRight(worker);
+        int up = layout.getUp(worker), down = layout.getDown(worker);
+        int columnStrip = radius*height, rowStrip = radius*paddedWidth;
+
+        copyColumns(width, true);
+        transport.send(right, strip, columnStrip);
+        transport.receive(left, strip, columnStrip);
+        copyColumns(0, false);
+
+        copyColumns(radius, true);
+        transport.send(left, strip, columnStrip);
+        transport.receive(right, strip, columnStrip);
+        copyColumns(radius+width, false);
+
+        System.arraycopy(cells.state, height*paddedWidth, strip, 0, rowStrip);
+        transport.send(down, strip, rowStrip);
+        transport.receive(up, strip, rowStrip);
+        System.arraycopy(strip, 0, cells.state, 0, rowStrip);
+
+        System.arraycopy(cells.state, radius*paddedWidth, strip, 0, rowStrip);
+        transport.send(up, strip, rowStrip);
+        transport.receive(down, strip, rowStrip);
+        System.arraycopy(strip, 0, cells.state, (radius+height)*paddedWidth, rowStrip);
+    }
+
+    // Copy the columns of the rows of the subdomain starting at the padded column into the strip, or back out of it.
+    private void copyColumns(int column, boolean intoStrip){
+        for(int y=0; y<height; y++){
+            int index = cells.getIndex(column, radius+y);
+            if(intoStrip){ System.arraycopy(cells.state, index, strip, y*radius, radius); }
+            else{ System.arraycopy(strip, y*radius, cells.state, index, radius); }
+        }
+    }
+
+    // Write the next state of every cell of the subdomain and make it the current state.
+    private void step(){
+        if(ringCounter != null){ ringCounter.update(cells); }
+        transitions.clearTransitions();
+        Arrays.fill(tileStates, (byte) 0);
+        for(int y=radius; y<radius+height; y++){
+            for(int x=radius; x<radius+width; x++){
+                int index = cells.getIndex(x, y);
+                if(ringCounter != null){
+                    CellularAutomaton.getNextStateAggregated(cells, nextTimeStep, x, y, index, ringCounter, counts,
+                            rand, timeStep+1, infection, removalDecay, daysToDeath);
+                } else {
+                    CellularAutomaton.getNextState(cells, nextTimeStep, x, y, index, stencil, rand, timeStep+1,
+                            infection, removalDecay, daysToDeath);
+                }
+                transitions.countTransition(cells, nextTimeStep, index);
+                tileStates[rowTiles[y-radius]+columnTiles[x-radius]] |= FrontierMap.getCellState(nextTimeStep, index);
+            }
+        }
+        statistics.advance(statistics, transitions);
+        CellGrid previous = cells;
+        cells = nextTimeStep;
+        nextTimeStep = previous;
+        timeStep++;
+    }
+}
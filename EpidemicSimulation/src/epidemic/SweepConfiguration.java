@@ -0,0 +1,59 @@
+package epidemic;
+
+// This class holds one combination of simulation parameters from a parameter sweep.
+public class SweepConfiguration {
+    final int id, width, height, radius, deathTime;
+    final Neighborhood neighborhood;
+    final double infectionProbability, contagionDecay, removalDecay;
+    final double initialInfectionPercentage, populationResistance;
+    final InfectionEvaluation infectionEvaluation;
+
+    SweepConfiguration(int configurationId, int w, int h, int r, int daysToDeath, Neighborhood model,
+                       double infectionChance, double contagionDecayRate, double removalDecayRate,
+                       double initialInfection, double resistance, InfectionEvaluation evaluation){
+        id = configurationId;
+        width = w;
+        height = h;
+        radius = r;
+        deathTime = daysToDeath;
+        neighborhood = model;
+        infectionProbability = infectionChance;
+        contagionDecay = contagionDecayRate;
+        removalDecay = removalDecayRate;
+        initialInfectionPercentage = initialInfection;
+        populationResistance = resistance;
+        infectionEvaluation = evaluation;
+    }
+
+    // Create and populate a simulation with these parameters and the master seed.
+    public Simulation createSimulation(long seed){
+        Simulation simulation = new Simulation(width, height, radius, deathTime, neighborhood,
+                infectionProbability, contagionDecay, removalDecay, seed);
+        simulation.setInfectionEvaluation(infectionEvaluation);
+        simulation.populateCells(initialInfectionPercentage, getResistanceDistribution());
+        return simulation;
+    }
+
+    // Estimated bytes taken up by a simulation of this configuration, stepped event driven or not.
+    public long estimateBytes(boolean eventDriven){
+        return Simulation.estimateBytes(width, height, radius, neighborhood, infectionEvaluation, eventDriven);
+    }
+
+    // A negative population resistance gives a uniform distribution of resistance across the population.
+    public ResistanceDistribution getResistanceDistribution(){
+        if(populationResistance < 0){ return ResistanceDistribution.uniform(); }
+        return ResistanceDistribution.constant(populationResistance);
+    }
+
+    // CSV column headers and values of the parameters.
+    public static String getCsvHeaders(){
+        return "Configuration, Width, Height, Radius, Death Time, Neighborhood, Infection Probability, "
+                + "Contagion Decay, Removal Decay, Initial Infection, Population Resistance, Infection Evaluation";
+    }
+
+    public String toCsv(){
+        return id+", "+width+", "+height+", "+radius+", "+deathTime+", "+neighborhood+", "+infectionProbability+", "
+                + contagionDecay+", "+removalDecay+", "+initialInfectionPercentage+", "+populationResistance+", "
+                + infectionEvaluation;
+    }
+}
@@ -0,0 +1,66 @@
+package epidemic;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Properties;
+
+// This class describes a parameter sweep read from a properties file.
+// Every parameter takes a comma separated list of values and every combination of values is simulated once for each
+// run. Run n of every combination uses the master seed "seed"+n, so all combinations see the same seeds.
+// Parameters and their defaults:
+// width = 50, height = 50, radius = 3, deathTime = 5, neighborhood = Moore
+// infectionProbability = 0.05, contagionDecay = 0.5, removalDecay = 0.95
+// initialInfection = 0.01, populationResistance = 0.25 (negative for a uniform distribution)
+// infectionEvaluation = PerNeighbor
+// runs = 1, seed = 0, maxDays = 10000
+// eventDriven = false takes a single value for the whole sweep, since stepping event driven gives the same results.
+public class SweepSpecification {
+    final ArrayList<SweepConfiguration> configurations = new ArrayList<>();
+    final int runs, maxDays;
+    final long seed;
+    final boolean eventDriven;
+
+    SweepSpecification(Properties properties){
+        runs = Integer.parseInt(properties.getProperty("runs", "1").trim());
+        seed = Long.parseLong(properties.getProperty("seed", "0").trim());
+        maxDays = Integer.parseInt(properties.getProperty("maxDays", "10000").trim());
+        eventDriven = Boolean.parseBoolean(properties.getProperty("eventDriven", "false").trim());
+
+        String[] widths = getValues(properties, "width", "50");
+        String[] heights = getValues(properties, "height", "50");
+        String[] radii = getValues(properties, "radius", "3");
+        String[] deathTimes = getValues(properties, "deathTime", "5");
+        String[] neighborhoods = getValues(properties, "neighborhood", "Moore");
+        String[] infectionProbabilities = getValues(properties, "infectionProbability", "0.05");
+        String[] contagionDecays = getValues(properties, "contagionDecay", "0.5");
+        String[] removalDecays = getValues(properties, "removalDecay", "0.95");
+        String[] initialInfections = getValues(properties, "initialInfection", "0.01");
+        String[] resistances = getValues(properties, "populationResistance", "0.25");
+        String[] evaluations = getValues(properties, "infectionEvaluation", "PerNeighbor");
+
+        for(String w : widths) for(String h : heights) for(String r : radii) for(String d : deathTimes)
+        for(String n : neighborhoods) for(String p : infectionProbabilities) for(String c : contagionDecays)
+        for(String rd : removalDecays) for(String i : initialInfections) for(String pr : resistances)
+        for(String e : evaluations){
+            configurations.add(new SweepConfiguration(configurations.size(),
+                    Integer.parseInt(w), Integer.parseInt(h), Integer.parseInt(r), Integer.parseInt(d),
+                    Neighborhood.valueOf(n), Double.parseDouble(p), Double.parseDouble(c), Double.parseDouble(rd),
+                    Double.parseDouble(i), Double.parseDouble(pr), InfectionEvaluation.valueOf(e)));
+        }
+    }
+
+    // Read a sweep specification from a properties file.
+    public static SweepSpecification read(String fileName) throws IOException {
+        Properties properties = new Properties();
+        try(Reader reader = new FileReader(fileName)){ properties.load(reader); }
+        return new SweepSpecification(properties);
+    }
+
+    private static String[] getValues(Properties properties, String key, String defaultValue){
+        String[] values = properties.getProperty(key, defaultValue).split(",");
+        for(int i=0; i<values.length; i++){ values[i] = values[i].trim(); }
+        return values;
+    }
+}
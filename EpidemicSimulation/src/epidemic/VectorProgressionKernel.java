@@ -0,0 +1,104 @@
+package epidemic;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// This class advances the infected cells of a run with the JDK Vector API.
+// The run is taken in blocks. The cells of a block that are infected but not removed or dead yet are gathered into
+// packed lanes together with their chance of removal, the resistance of the cell times the removal decay for its
+// days infected, which is looked up in a table computed once instead of calling pow for every cell. The first draw of
+// the stream of every lane is then calculated in vector lanes the same way SplitMixStream calculates it, and the
+// drawn lanes are written back to their cells. This replicates the scalar kernel draw for draw, so results are
+// exactly the same.
+// Only the removal decay rule with a decay between 0 exclusive and 1 inclusive is vectorized, and only the SplitMix
+// streams are replicated. Any other run is handed to the scalar kernel. A SplitMix stream wrapped to count its draws
+// for the metrics is still vectorized, with every lane counted as one draw.
+// This class must only be loaded through ProgressionKernel.create, which falls back to the scalar kernel when the
+// jdk.incubator.vector module is not available.
+class VectorProgressionKernel extends ProgressionKernel {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Most cells gathered at once, a whole number of vectors.
+    private static final int BLOCK = LONGS.loopBound(64)+LONGS.length();
+
+    // Removal decay to the power of every days infected a cell can reach, or null if the decay is not vectorized.
+    private final double[] removalFactor;
+    // The gathered lanes of a block: the cell index, its stream position, its chance of removal and its draw.
+    private final int[] cells = new int[BLOCK];
+    private final long[] streams = new long[BLOCK];
+    private final double[] chances = new double[BLOCK], draws = new double[BLOCK];
+
+    VectorProgressionKernel(double removalDecayRate, int deathTime){
+        super(removalDecayRate, deathTime);
+        if(LONGS.length() < 2 || LONGS.length() != DOUBLES.length()){
+            throw new UnsupportedOperationException("No vector shape holding more than one draw.");
+        }
+        if(removalDecay > 0 && removalDecay <= 1){
+            removalFactor = new double[CellGrid.MAX_DAYS_INFECTED+2];
+            for(int d=0; d<removalFactor.length; d++){ removalFactor[d] = Math.pow(removalDecay, (double) d); }
+        } else {
+            removalFactor = null;
+        }
+    }
+
+    @Override
+    boolean isVectorized(){ return true; }
+
+    @Override
+    void progress(CellGrid current, CellGrid next, int start, int end, RandomStream rand, long timeStep){
+        CountingStream counting = (rand instanceof CountingStream) ? (CountingStream) rand:null;
+        RandomStream stream = (counting != null) ? counting.getStream():rand;
+        if(removalFactor == null || !(stream instanceof SplitMixStream)){
+            super.progress(current, next, start, end, rand, timeStep);
+            return;
+        }
+        next.copyStates(current, start, end);
+        // The stream of a cell is positioned at this plus its index, see SplitMixStream.setPosition.
+        long seed = ((SplitMixStream) stream).getSeed();
+        long streamBase = SplitMixStream.mix64(seed+timeStep*SplitMixStream.GOLDEN_GAMMA);
+        for(int blockStart=start; blockStart<end; blockStart+=BLOCK){
+            int lanes = gather(current, blockStart, Math.min(end, blockStart+BLOCK), streamBase);
+            if(counting != null){ counting.addDraws(lanes); }
+            for(int lane=0; lane<lanes; lane+=LONGS.length()){
+                // Position the stream, then take the first nextDouble of it.
+                LongVector state = mix64(mix64(LongVector.fromArray(LONGS, streams, lane))
+                        .add(SplitMixStream.GOLDEN_GAMMA));
+                ((DoubleVector) state.lanewise(VectorOperators.LSHR, 11).convert(VectorOperators.L2D, 0))
+                        .mul(0x1.0p-53).intoArray(draws, lane);
+            }
+            for(int lane=0; lane<lanes; lane++){
+                int index = cells[lane];
+                byte cell = current.state[index];
+                int daysInfected = CellGrid.getDaysInfected(cell)+1;
+                int flags = cell & CellGrid.FLAGS;
+                if(draws[lane] < chances[lane]){ flags |= CellGrid.REMOVED; }
+                if(daysInfected >= daysToDeath){ flags |= CellGrid.DEAD; }
+                next.state[index] = CellGrid.pack(flags, daysInfected);
+            }
+        }
+    }
+
+    // Gather the cells of the block that progress into the lanes and return the number of lanes filled.
+    private int gather(CellGrid current, int blockStart, int blockEnd, long streamBase){
+        int lanes = 0;
+        for(int index=blockStart; index<blockEnd; index++){
+            byte cell = current.state[index];
+            if((cell & CellGrid.FLAGS) == CellGrid.CONTAGIOUS){
+                cells[lanes] = index;
+                streams[lanes] = streamBase+index;
+                chances[lanes] = current.getResistance(index)*removalFactor[CellGrid.getDaysInfected(cell)+1];
+                lanes++;
+            }
+        }
+        return lanes;
+    }
+
+    // SplitMixStream.mix64 in every lane.
+    private static LongVector mix64(LongVector z){
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xbf58476d1ce4e5b9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94d049bb133111ebL);
+        return z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+    }
+}
@@ -0,0 +1,84 @@
+package epidemic;
+
+import java.io.IOException;
+
+public class main {
+    public static void main(String[] args){
+        // Statistics about the simulation, kept up to date by the simulation every time step.
+        SimulationStatistics statistics;
+
+        // Create a new simulation with the desired parameters.
+        Simulation mySimulation = new Simulation(
+                50, 50, 3, 5, Neighborhood.Moore,
+                0.05, 0.5, 0.95);
+
+        // Only step the parts of the simulation space that can still change.
+        mySimulation.setSparseStepping(true);
+
+        // Populate the simulation space using the desired populate function and parameters.
+        mySimulation.populateCells(0.01, 0.25);
+        statistics = mySimulation.getStatistics();
+
+        // Days between checkpoints of the simulation, which can be restored to resume or branch the simulation.
+        // Zero never writes a checkpoint.
+        int checkpointInterval = 0;
+        // Days between images of the simulation space written to the frames directory. Zero never writes an image.
+        int frameInterval = 0;
+
+        // Variables to see state changes and check for termination criteria.
+        boolean stable = false;
+        int day, daysStable;
+        day = daysStable = 0;
+
+        System.out.println("Seed: "+mySimulation.getSeed());
+
+        // The statistics of every day are printed and written to the csv file on a background thread while the
+        // simulation keeps stepping.
+        try(OutputPipeline output = new OutputPipeline(1024)){
+            output.setConsoleOutput(true);
+            output.setCsvFile("statistics.csv");
+            if(frameInterval > 0){ output.setFrameOutput("frames", frameInterval, 1024); }
+
+            // Publish the initial state of the simulation.
+            output.publish(mySimulation);
+
+            // Continue simulating until a steady state is reached.
+            while(!stable){
+                // Get the next time step state of the simulation.
+                mySimulation.getNextTimeStep();
+
+                // Update the current simulation state to the new state simulated and increase the time step.
+                mySimulation.updateTimeStep();
+                day++;
+
+                // Publish the state changes of the new day.
+                output.publish(mySimulation);
+
+                // Overwrite the last checkpoint with the current day.
+                if(checkpointInterval > 0 && day % checkpointInterval == 0){
+                    Checkpoint.write(mySimulation, "checkpoint.bin");
+                }
+
+                // Check if system is stable.
+                if(statistics.isUnchanged()){ daysStable++; }
+                else{ daysStable = 0; }
+                // Stop right away once no cell can change anymore.
+                stable = (daysStable == 3 || mySimulation.isSettled());
+            }
+        }catch(IOException e){
+            e.printStackTrace();
+        }
+
+        // Print final counts of the states of the cellular automatons from the simulation.
+        System.out.println("*****************************************************************************************");
+        System.out.println("Infections: "+statistics.getInfections());
+        System.out.println("Deaths: "+statistics.getDeaths());
+        System.out.println("Immunity: "+statistics.getRemovals());
+
+        // Print where the time of the simulation went when started with -Depidemic.metrics=true.
+        if(SimulationMetrics.ENABLED){
+            System.out.println();
+            System.out.print(mySimulation.getMetrics());
+        }
+    }
+}